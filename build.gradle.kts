@@ -23,20 +23,85 @@ repositories {
 	mavenCentral()
 }
 
+val jmh by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output
+	runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+configurations["jmhRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
+val loadTest by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output
+	runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations["loadTestImplementation"].extendsFrom(configurations.implementation.get())
+configurations["loadTestRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-web")
 	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("org.springframework.boot:spring-boot-starter-aop")
 	implementation("org.springframework.boot:spring-boot-starter-validation")
+	implementation("com.github.ben-manes.caffeine:caffeine")
+	implementation("com.github.ben-manes.caffeine:jcache")
+	implementation("org.hibernate.orm:hibernate-jcache")
+	implementation("org.hibernate.orm:hibernate-micrometer")
+	implementation("org.springframework:spring-r2dbc")
+	implementation("io.r2dbc:r2dbc-pool")
+	implementation("io.projectreactor:reactor-core")
+	implementation("io.r2dbc:r2dbc-h2")
 	compileOnly("org.projectlombok:lombok")
 	runtimeOnly("com.h2database:h2")
+	runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 	annotationProcessor("org.projectlombok:lombok")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testImplementation("org.springframework.boot:spring-boot-testcontainers")
 	testImplementation("org.testcontainers:junit-jupiter")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+	"jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+	"jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+// Runs the JMH benchmarks in src/jmh against an in-memory H2 database.
+// Select benchmarks with -Pjmh.include=<regex>, e.g. ./gradlew jmh -Pjmh.include=BulkInsert,
+// and pass extra JMH options with -Pjmh.args, e.g. -Pjmh.args="-prof gc -f 2".
+// Results are written as JSON to build/reports/jmh/results.json, or to -Pjmh.results=<file>.
+tasks.register<JavaExec>("jmh") {
+	group = "benchmark"
+	description = "Runs the JMH benchmarks."
+	val results = providers.gradleProperty("jmh.results")
+		.map { file(it) }
+		.orElse(layout.buildDirectory.file("reports/jmh/results.json").map { it.asFile })
+	classpath = jmh.runtimeClasspath
+	mainClass = "org.openjdk.jmh.Main"
+	javaLauncher = javaToolchains.launcherFor(java.toolchain)
+	args(providers.gradleProperty("jmh.include").getOrElse(".*"))
+	args("-rf", "json", "-rff", results.get().absolutePath)
+	args(providers.gradleProperty("jmh.args").getOrElse("").split(" ").filter { it.isNotBlank() })
+	outputs.file(results)
+	outputs.upToDateWhen { false }
+	doFirst { results.get().parentFile.mkdirs() }
+}
+
+// Compares platform-thread and virtual-thread request handling, and the reactive (R2DBC) endpoints,
+// under concurrent HTTP load. Tune with -Pload.concurrency=1000, -Pload.duration=20, -Pload.warmup=5 (seconds),
+// -Pload.modes=platform,virtual,reactive and -Pload.results=<file> (default build/reports/load-test/results.json).
+// -Pload.profiles=prod -Pload.database=file -Pload.write-ratio=0.1 runs the tuned profile against a
+// file-backed H2 with 10% writes; -Pload.max-p99-ms=<ms> fails the task if p99 is above it.
+tasks.register<JavaExec>("loadTest") {
+	group = "benchmark"
+	description = "Runs the platform vs. virtual thread vs. reactive load test."
+	classpath = loadTest.runtimeClasspath
+	mainClass = "nl.gerimedica.assignment.LoadTest"
+	javaLauncher = javaToolchains.launcherFor(java.toolchain)
+	workingDir = projectDir
+	systemProperties(providers.gradlePropertiesPrefixedBy("load.").get())
+	outputs.upToDateWhen { false }
+}
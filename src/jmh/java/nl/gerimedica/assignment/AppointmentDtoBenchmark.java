@@ -0,0 +1,106 @@
+package nl.gerimedica.assignment;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response-side cost per page size, without a database:
+ * - {@code toDtoList}: {@link AppointmentMapper#toDtoList} over loaded entities
+ * - {@code serialize}: Jackson serialization of the DTO list with Spring Boot's default ObjectMapper setup
+ * - {@code streamWithObjectWriter}: the DTOs written one by one to a generator through the bean
+ *   serializer, as the streaming search endpoint used to do
+ * - {@code streamWithMapper}: the same through {@link AppointmentMapper#writeJson}
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppointmentDtoBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private final AppointmentMapper mapper = new AppointmentMapper();
+    private JsonFactory jsonFactory;
+    private ObjectWriter listWriter;
+    private ObjectWriter dtoWriter;
+    private List<Appointment> appointments;
+    private List<AppointmentDto> dtos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        jsonFactory = objectMapper.getFactory();
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+            .constructCollectionType(List.class, AppointmentDto.class));
+        dtoWriter = objectMapper.writerFor(AppointmentDto.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        Field patientId = Patient.class.getDeclaredField("id");
+        Field appointmentId = Appointment.class.getDeclaredField("id");
+        patientId.setAccessible(true);
+        appointmentId.setAccessible(true);
+
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        appointments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Patient patient = new Patient("Patient " + i, "SSN-" + i);
+            patientId.set(patient, (long) i);
+            Appointment appointment = new Appointment("Checkup " + i, start.plusDays(i % 365), patient);
+            appointmentId.set(appointment, (long) i);
+            appointments.add(appointment);
+        }
+        dtos = mapper.toDtoList(appointments);
+    }
+
+    @Benchmark
+    public List<AppointmentDto> toDtoList() {
+        return mapper.toDtoList(appointments);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public void streamWithObjectWriter() throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            json.writeStartArray();
+            for (AppointmentDto dto : dtos) {
+                dtoWriter.writeValue(json, dto);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void streamWithMapper() throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            json.writeStartArray();
+            for (AppointmentDto dto : dtos) {
+                mapper.writeJson(dto, json);
+            }
+            json.writeEndArray();
+        }
+    }
+}
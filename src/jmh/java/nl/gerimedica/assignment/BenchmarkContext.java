@@ -0,0 +1,44 @@
+package nl.gerimedica.assignment;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application without a web server against a private in-memory H2 database,
+ * so every benchmark trial starts from an empty schema.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Starts a quiet application context for benchmarking.
+     * Properties are passed as command-line arguments so they override application.properties.
+     *
+     * @param extraProperties additional "key=value" properties for the benchmark
+     * @return the running application context; close it in the benchmark's tear-down
+     */
+    static ConfigurableApplicationContext start(String... extraProperties) {
+        List<String> args = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "spring.main.banner-mode=off",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.nl.gerimedica.assignment=WARN",
+                "logging.level.org.hibernate.SQL=OFF",
+                "logging.level.org.hibernate.orm.jdbc.bind=OFF",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=OFF"));
+        args.addAll(List.of(extraProperties));
+        return new SpringApplicationBuilder(AssignmentApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args.stream().map(arg -> "--" + arg).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,56 @@
+package nl.gerimedica.assignment;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rows/sec of {@link HospitalService#bulkCreateAppointments} for a full
+ * 100-item {@link BulkAppointmentRequest}. Each invocation inserts {@value #ROWS} rows,
+ * so the reported throughput is rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BulkInsertBenchmark.ROWS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    static final int ROWS = 100;
+
+    private ConfigurableApplicationContext context;
+    private HospitalService hospitalService;
+    private List<String> reasons;
+    private List<LocalDate> dates;
+    private long invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        hospitalService = context.getBean(HospitalService.class);
+        reasons = new ArrayList<>(ROWS);
+        dates = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            reasons.add("Checkup " + i);
+            dates.add(LocalDate.of(2025, i % 12 + 1, i % 28 + 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AppointmentDto> bulkCreate() {
+        // A fresh SSN per invocation also exercises the patient insert.
+        String ssn = "B" + (invocation++ % 10_000_000_000L);
+        return hospitalService.bulkCreateAppointments("Bench Patient", ssn, reasons, dates);
+    }
+}
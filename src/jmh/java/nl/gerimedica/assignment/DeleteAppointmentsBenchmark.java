@@ -0,0 +1,72 @@
+package nl.gerimedica.assignment;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link HospitalService#deleteAppointmentsBySSN} for one patient, across history sizes.
+ * The patient's appointments are recreated before every invocation, outside the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeleteAppointmentsBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"10", "100", "1000"})
+    public int historySize;
+
+    private ConfigurableApplicationContext context;
+    private HospitalService hospitalService;
+    private List<List<String>> reasons;
+    private List<List<LocalDate>> dates;
+    private long invocation;
+    private String ssn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        hospitalService = context.getBean(HospitalService.class);
+        reasons = new ArrayList<>();
+        dates = new ArrayList<>();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int from = 0; from < historySize; from += BATCH) {
+            List<String> batchReasons = new ArrayList<>(BATCH);
+            List<LocalDate> batchDates = new ArrayList<>(BATCH);
+            for (int i = from; i < Math.min(historySize, from + BATCH); i++) {
+                batchReasons.add("Visit " + i);
+                batchDates.add(start.plusDays(i));
+            }
+            reasons.add(batchReasons);
+            dates.add(batchDates);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createHistory() {
+        ssn = "D" + invocation++;
+        for (int batch = 0; batch < reasons.size(); batch++) {
+            hospitalService.bulkCreateAppointments("Delete Patient", ssn, reasons.get(batch), dates.get(batch));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Integer> deleteBySsn() {
+        return hospitalService.deleteAppointmentsBySSN(ssn);
+    }
+}
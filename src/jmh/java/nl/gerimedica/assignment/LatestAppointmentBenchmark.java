@@ -0,0 +1,80 @@
+package nl.gerimedica.assignment;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latest-appointment lookup for one patient among many, across per-patient history sizes.
+ * <p>
+ * - {@code topOneQuery}: {@link HospitalService#findLatestAppointmentBySSN}, an index seek
+ * - {@code fetchWholeHistory}: the previous approach, JOIN FETCH of the full history plus an in-memory max
+ * </p>
+ * Hibernate's second-level and query caches are off, since they would answer the (now cacheable) JOIN FETCH
+ * without touching the database and time cache hits instead of the query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatestAppointmentBenchmark {
+
+    private static final int PATIENTS = 20;
+
+    @Param({"10", "1000", "10000"})
+    public int historySize;
+
+    private ConfigurableApplicationContext context;
+    private HospitalService hospitalService;
+    private PatientRepository patientRepository;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+            "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+            "spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        hospitalService = context.getBean(HospitalService.class);
+        patientRepository = context.getBean(PatientRepository.class);
+
+        LocalDate start = LocalDate.of(2000, 1, 1);
+        for (int patient = 0; patient < PATIENTS; patient++) {
+            List<String> reasons = new ArrayList<>(historySize);
+            List<LocalDate> dates = new ArrayList<>(historySize);
+            for (int i = 0; i < historySize; i++) {
+                reasons.add("Visit " + i);
+                dates.add(start.plusDays(i));
+            }
+            hospitalService.bulkCreateAppointments("History " + patient, ssn(patient), reasons, dates);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<AppointmentDto> topOneQuery() {
+        return hospitalService.findLatestAppointmentBySSN(ssn(next++ % PATIENTS));
+    }
+
+    @Benchmark
+    public Optional<Appointment> fetchWholeHistory() {
+        return patientRepository.findBySsnWithAppointments(ssn(next++ % PATIENTS))
+            .flatMap(patient -> patient.getAppointments().stream()
+                .max(Comparator.comparing(Appointment::getDate)));
+    }
+
+    private static String ssn(int patient) {
+        return "HIST-" + patient;
+    }
+}
@@ -0,0 +1,62 @@
+package nl.gerimedica.assignment;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one 100-row keyset page from {@link ReasonSearchIndex} as the number of
+ * indexed appointments grows. No database is involved; this isolates the index itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReasonSearchIndexBenchmark {
+
+    private static final String[] REASONS = {
+        "Checkup", "Follow-up", "X-Ray", "MRI scan", "Blood test", "Vaccination", "Physiotherapy",
+        "Dental checkup", "Eye exam", "Consultation", "Cardiology referral", "Dermatology consult"
+    };
+
+    @Param({"100000", "1000000"})
+    public int appointments;
+
+    @Param({"check", "ray", "derm", "c"})
+    public String keyword;
+
+    private ReasonSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new ReasonSearchIndex(null, null, true, Long.MAX_VALUE);
+        Random random = new Random(7);
+        List<AppointmentDto> batch = new ArrayList<>(10_000);
+        for (long id = 1; id <= appointments; id++) {
+            // A few hundred distinct reasons, like a real catalogue with free-text variants
+            String reason = REASONS[random.nextInt(REASONS.length)] + " #" + random.nextInt(40);
+            batch.add(new AppointmentDto(id, reason, LocalDate.of(2025, 1, 1), id % 50_000));
+            if (batch.size() == 10_000) {
+                index.addAll(batch);
+                batch.clear();
+            }
+        }
+        index.addAll(batch);
+    }
+
+    @Benchmark
+    public List<Long> firstPage() {
+        return index.search(keyword, 0L, 100);
+    }
+
+    @Benchmark
+    public List<Long> deepPage() {
+        return index.search(keyword, appointments / 2L, 100);
+    }
+}
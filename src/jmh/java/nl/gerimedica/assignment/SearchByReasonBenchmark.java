@@ -0,0 +1,71 @@
+package nl.gerimedica.assignment;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first 100-row page of {@link HospitalService#getAppointmentsByReason}
+ * as the table grows, with and without the {@link ReasonSearchIndex}.
+ * With the index disabled every page is a LIKE scan in H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchByReasonBenchmark {
+
+    private static final String[] REASONS = {
+        "Checkup", "Follow-up", "X-Ray", "MRI scan", "Blood test", "Vaccination", "Physiotherapy",
+        "Dental checkup", "Eye exam", "Consultation", "Cardiology referral", "Dermatology consult"
+    };
+    private static final int BATCH = 100;
+    private static final int PAGE = 100;
+
+    @Param({"10000", "100000"})
+    public int appointments;
+
+    @Param({"true", "false"})
+    public boolean indexEnabled;
+
+    private ConfigurableApplicationContext context;
+    private HospitalService hospitalService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = BenchmarkContext.start("hospital.search.index.enabled=" + indexEnabled);
+        hospitalService = context.getBean(HospitalService.class);
+
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int batch = 0; batch < appointments / BATCH; batch++) {
+            List<String> reasons = new ArrayList<>(BATCH);
+            List<LocalDate> dates = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                reasons.add(REASONS[(batch * BATCH + i) % REASONS.length]);
+                dates.add(start.plusDays(i));
+            }
+            hospitalService.bulkCreateAppointments("Search " + batch, "S" + batch, reasons, dates);
+        }
+
+        ReasonSearchIndex index = context.getBean(ReasonSearchIndex.class);
+        while (indexEnabled && !index.isReady()) {
+            Thread.sleep(50);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AppointmentDto> firstPage() {
+        return hospitalService.getAppointmentsByReason("ray", null, PAGE);
+    }
+}
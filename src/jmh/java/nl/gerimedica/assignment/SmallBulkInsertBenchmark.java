@@ -0,0 +1,65 @@
+package nl.gerimedica.assignment;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures rows/sec of many concurrent small {@link HospitalService#bulkCreateAppointments} calls
+ * ({@value #ROWS} rows each, one patient per thread), with and without the
+ * {@link AppointmentWriteBuffer} group commits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(SmallBulkInsertBenchmark.ROWS)
+@Threads(32)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmallBulkInsertBenchmark {
+
+    static final int ROWS = 3;
+
+    private static final List<String> REASONS = List.of("Checkup", "X-Ray", "Follow-up");
+    private static final List<LocalDate> DATES =
+        List.of(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 4, 2), LocalDate.of(2025, 4, 3));
+
+    @Param({"false", "true"})
+    public boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private HospitalService hospitalService;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    /** The patient one benchmark thread creates appointments for. */
+    @State(Scope.Thread)
+    public static class Caller {
+        private String ssn;
+
+        @Setup(Level.Trial)
+        public void setUp(SmallBulkInsertBenchmark benchmark) {
+            ssn = "S" + benchmark.threads.incrementAndGet();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("hospital.write-behind.enabled=" + writeBehind);
+        hospitalService = context.getBean(HospitalService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AppointmentDto> smallBulkCreate(Caller caller) {
+        return hospitalService.bulkCreateAppointments("Bench Patient", caller.ssn, REASONS, DATES);
+    }
+}
@@ -0,0 +1,387 @@
+package nl.gerimedica.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load-test harness comparing request handling on Tomcat platform threads with virtual threads,
+ * and the servlet API with its reactive variant.
+ * <p>
+ * For each mode the application is started on a random port against a private H2 database
+ * and seeded; then {@code load.concurrency} clients send a mix of
+ * {@code /latest}, {@code /search} and date-range requests for {@code load.duration} seconds
+ * after a {@code load.warmup} period. Throughput, p50/p99/max latency and errors are printed
+ * and written as JSON to {@code load.results}.
+ * </p>
+ * <p>
+ * - mode {@code reactive} runs on platform threads and sends the same mix to
+ *   {@code /api/v1/reactive/appointments} (R2DBC); the pool figures are then those of the idle JDBC pool
+ * - {@code load.profiles} activates Spring profiles, e.g. {@code prod} for the tuned pool
+ * - {@code load.database=file} uses a file-backed H2 in a temporary directory instead of memory,
+ *   as a stand-in for a real database
+ * - admission control is off, since every client shares one address; {@code load.admission=true}
+ *   keeps it on, to see how it sheds load
+ * - {@code load.write-ratio} sends that fraction of requests as one-row {@code POST /bulk}
+ * - the connection pool is sampled during the measurement; the busiest moment (active and waiting
+ *   connections) and connection timeouts are reported
+ * - with {@code load.max-p99-ms}, the run fails if any mode's p99 is above it or any request failed
+ * </p>
+ * Client and server share one JVM and its CPUs, so compare modes with each other rather than
+ * reading the numbers as absolute capacity.
+ */
+public final class LoadTest {
+
+    private static final int PATIENTS = 200;
+    private static final int APPOINTMENTS_PER_PATIENT = 50;
+    private static final String[] REASONS = {"Checkup", "Follow-up", "X-Ray", "Blood test", "Consultation"};
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final long POOL_SAMPLE_MILLIS = 50;
+
+    /** Outcome of one mode. Getters are used for the JSON report. */
+    public static final class Result {
+        private final String mode;
+        private final int concurrency;
+        private final long requests;
+        private final long errors;
+        private final double throughput;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+        private final long pinnedThreads;
+        private final PoolSample pool;
+
+        Result(String mode, int concurrency, long requests, long errors, double throughput,
+               double p50Millis, double p99Millis, double maxMillis, long pinnedThreads, PoolSample pool) {
+            this.mode = mode;
+            this.concurrency = concurrency;
+            this.requests = requests;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+            this.pinnedThreads = pinnedThreads;
+            this.pool = pool;
+        }
+
+        public String getMode() { return mode; }
+        public int getConcurrency() { return concurrency; }
+        public long getRequests() { return requests; }
+        public long getErrors() { return errors; }
+        public double getThroughput() { return throughput; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
+        public long getPinnedThreads() { return pinnedThreads; }
+        public PoolSample getPool() { return pool; }
+    }
+
+    /** Connection pool load during the measurement. Getters are used for the JSON report. */
+    public static final class PoolSample {
+        private final int size;
+        private int maxActive;
+        private int maxPending;
+        private long timeouts;
+
+        PoolSample(int size) {
+            this.size = size;
+        }
+
+        public int getSize() { return size; }
+        public int getMaxActive() { return maxActive; }
+        public int getMaxPending() { return maxPending; }
+        public long getTimeouts() { return timeouts; }
+    }
+
+    /** Application settings shared by every mode of one run. */
+    private static final class Settings {
+        private final String profiles = System.getProperty("load.profiles", "");
+        private final String database = System.getProperty("load.database", "mem");
+        private final double writeRatio = Double.parseDouble(System.getProperty("load.write-ratio", "0"));
+        private final boolean admission = Boolean.getBoolean("load.admission");
+    }
+
+    /** Latencies and errors of one client, recorded only after the warm-up. */
+    private static final class ClientStats {
+        private long[] latencies = new long[4096];
+        private int count;
+        private long errors;
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private LoadTest() {
+        throw new UnsupportedOperationException("Main class");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("load.concurrency", 1000);
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 5));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 20));
+        List<String> modes = List.of(System.getProperty("load.modes", "platform,virtual,reactive").split(","));
+        Path resultsFile = Path.of(System.getProperty("load.results", "build/reports/load-test/results.json"));
+        String maxP99 = System.getProperty("load.max-p99-ms");
+        Settings settings = new Settings();
+
+        List<Result> results = new ArrayList<>();
+        for (String mode : modes) {
+            results.add(run(mode.trim(), concurrency, warmup, duration, settings));
+        }
+
+        System.out.printf("%nprofiles: [%s], database: %s, write ratio: %.2f%n",
+            settings.profiles, settings.database, settings.writeRatio);
+        System.out.printf("%-10s %8s %10s %8s %12s %10s %10s %10s %8s %14s %12s%n",
+            "mode", "clients", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms", "pinned",
+            "pool act/wait", "pool t/o");
+        for (Result r : results) {
+            System.out.printf("%-10s %8d %10d %8d %12.1f %10.2f %10.2f %10.2f %8d %14s %12d%n",
+                r.getMode(), r.getConcurrency(), r.getRequests(), r.getErrors(), r.getThroughput(),
+                r.getP50Millis(), r.getP99Millis(), r.getMaxMillis(), r.getPinnedThreads(),
+                r.getPool().getMaxActive() + "/" + r.getPool().getSize() + " " + r.getPool().getMaxPending(),
+                r.getPool().getTimeouts());
+        }
+        write(results, resultsFile);
+        System.out.println("Results written to " + resultsFile.toAbsolutePath());
+
+        if (maxP99 != null) {
+            double limit = Double.parseDouble(maxP99);
+            List<String> failed = results.stream()
+                .filter(r -> r.getP99Millis() > limit || r.getErrors() > 0)
+                .map(Result::getMode)
+                .toList();
+            if (!failed.isEmpty()) {
+                System.err.printf("p99 above %.1f ms or failed requests in: %s%n", limit, failed);
+                System.exit(1);
+            }
+            System.out.printf("p99 within %.1f ms without errors in every mode%n", limit);
+        }
+    }
+
+    private static Result run(String mode, int concurrency, Duration warmup, Duration duration,
+                              Settings settings) throws Exception {
+        boolean virtual = "virtual".equals(mode);
+        Path databaseDir = "file".equals(settings.database) ? Files.createTempDirectory("load-db") : null;
+        try (ConfigurableApplicationContext context = start(virtual, settings, databaseDir)) {
+            seed(context.getBean(HospitalService.class));
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + ("reactive".equals(mode) ? "/api/v1/reactive/appointments" : "/api/v1/appointments");
+
+            HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            long measureFrom = System.nanoTime() + warmup.toNanos();
+            long measureUntil = measureFrom + duration.toNanos();
+
+            HikariDataSource hikari = context.getBean(DataSource.class).unwrap(HikariDataSource.class);
+            PoolSample pool = new PoolSample(hikari.getMaximumPoolSize());
+            long timeoutsBefore = poolTimeouts(context, hikari);
+
+            List<ClientStats> stats = new ArrayList<>(concurrency);
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                clients.submit(() -> samplePool(hikari.getHikariPoolMXBean(), pool, measureFrom, measureUntil));
+                List<Future<ClientStats>> futures = new ArrayList<>(concurrency);
+                for (int i = 0; i < concurrency; i++) {
+                    int clientId = i;
+                    futures.add(clients.submit(() ->
+                        drive(client, base, clientId, measureFrom, measureUntil, settings.writeRatio)));
+                }
+                for (Future<ClientStats> future : futures) {
+                    stats.add(future.get());
+                }
+            }
+            pool.timeouts = poolTimeouts(context, hikari) - timeoutsBefore;
+
+            long pinned = context.getBeanProvider(VirtualThreadPinningMonitor.class)
+                .stream().mapToLong(VirtualThreadPinningMonitor::pinnedCount).sum();
+            return summarize(mode, concurrency, duration, stats, pinned, pool);
+        } finally {
+            if (databaseDir != null) {
+                FileSystemUtils.deleteRecursively(databaseDir);
+            }
+        }
+    }
+
+    /** Record the busiest pool state seen during the measurement window. */
+    private static Void samplePool(HikariPoolMXBean bean, PoolSample pool, long measureFrom, long measureUntil)
+            throws InterruptedException {
+        while (System.nanoTime() < measureUntil) {
+            if (System.nanoTime() >= measureFrom) {
+                pool.maxActive = Math.max(pool.maxActive, bean.getActiveConnections());
+                pool.maxPending = Math.max(pool.maxPending, bean.getThreadsAwaitingConnection());
+            }
+            Thread.sleep(POOL_SAMPLE_MILLIS);
+        }
+        return null;
+    }
+
+    private static long poolTimeouts(ConfigurableApplicationContext context, HikariDataSource hikari) {
+        Counter timeouts = context.getBean(MeterRegistry.class)
+            .find("hikaricp.connections.timeout").tag("pool", hikari.getPoolName()).counter();
+        return timeouts != null ? (long) timeouts.count() : 0;
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual, Settings settings, Path databaseDir) {
+        String url = databaseDir != null
+            ? "jdbc:h2:file:" + databaseDir.resolve("hospital").toAbsolutePath() + ";QUERY_CACHE_SIZE=256"
+            : "jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        String[] args = {
+            "--server.port=0",
+            "--spring.profiles.active=" + settings.profiles,
+            "--spring.threads.virtual.enabled=" + virtual,
+            "--hospital.admission.enabled=" + settings.admission,
+            "--spring.datasource.url=" + url,
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.h2.console.enabled=false",
+            "--spring.main.banner-mode=off",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.nl.gerimedica.assignment=WARN",
+            "--logging.level.org.hibernate.SQL=OFF",
+            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=OFF"
+        };
+        return new SpringApplicationBuilder(AssignmentApplication.class).logStartupInfo(false).run(args);
+    }
+
+    private static void seed(HospitalService hospitalService) {
+        for (int patient = 0; patient < PATIENTS; patient++) {
+            List<String> reasons = new ArrayList<>(APPOINTMENTS_PER_PATIENT);
+            List<LocalDate> dates = new ArrayList<>(APPOINTMENTS_PER_PATIENT);
+            for (int i = 0; i < APPOINTMENTS_PER_PATIENT; i++) {
+                reasons.add(REASONS[(patient + i) % REASONS.length]);
+                dates.add(START.plusDays((patient * 7L + i) % 365));
+            }
+            hospitalService.bulkCreateAppointments("Load " + patient, ssn(patient), reasons, dates);
+        }
+    }
+
+    private static ClientStats drive(HttpClient client, String base, int clientId,
+                                     long measureFrom, long measureUntil, double writeRatio) {
+        ClientStats stats = new ClientStats();
+        long sequence = clientId;
+        while (true) {
+            long start = System.nanoTime();
+            if (start >= measureUntil) {
+                return stats;
+            }
+            boolean ok;
+            try {
+                HttpResponse<Void> response = client.send(request(base, sequence++, writeRatio),
+                    HttpResponse.BodyHandlers.discarding());
+                ok = response.statusCode() < 400;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return stats;
+            }
+            if (start >= measureFrom) {
+                if (ok) {
+                    stats.record(System.nanoTime() - start);
+                } else {
+                    stats.errors++;
+                }
+            }
+        }
+    }
+
+    /**
+     * A one-row bulk create for about {@code writeRatio} of the sequence numbers, otherwise a read.
+     */
+    private static HttpRequest request(String base, long sequence, double writeRatio) {
+        if (writeRatio > 0 && Math.floorMod(sequence * 0x9E3779B97F4A7C15L, 1000) < writeRatio * 1000) {
+            int patient = (int) (sequence % PATIENTS);
+            String body = "{\"reasons\":[\"" + REASONS[patient % REASONS.length] + "\"],"
+                + "\"dates\":[\"" + START.plusDays(sequence % 365) + "\"]}";
+            return HttpRequest.newBuilder(URI.create(base + "/bulk?patientName=Load&ssn=" + ssn(patient)))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        }
+        return HttpRequest.newBuilder(URI.create(base + path(sequence))).GET().build();
+    }
+
+    /** Rotates through the read endpoints; every patient and date window is hit evenly. */
+    private static String path(long sequence) {
+        int patient = (int) (sequence % PATIENTS);
+        return switch ((int) (sequence % 3)) {
+            case 0 -> "/latest?ssn=" + ssn(patient);
+            case 1 -> "/search?keyword=" + URLEncoder.encode(REASONS[patient % REASONS.length], StandardCharsets.UTF_8)
+                + "&limit=20";
+            default -> {
+                LocalDate from = START.plusDays(patient % 358);
+                yield "?from=" + from + "&to=" + from.plusDays(6) + "&limit=50";
+            }
+        };
+    }
+
+    private static Result summarize(String mode, int concurrency, Duration duration,
+                                    List<ClientStats> stats, long pinned, PoolSample pool) {
+        int total = stats.stream().mapToInt(s -> s.count).sum();
+        long errors = stats.stream().mapToLong(s -> s.errors).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (ClientStats s : stats) {
+            System.arraycopy(s.latencies, 0, all, offset, s.count);
+            offset += s.count;
+        }
+        Arrays.sort(all);
+        return new Result(mode, concurrency, total, errors,
+            total / (double) duration.toSeconds(),
+            percentileMillis(all, 0.50), percentileMillis(all, 0.99), percentileMillis(all, 1.0),
+            pinned, pool);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static void write(List<Result> results, Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), results);
+    }
+
+    private static String ssn(int patient) {
+        return "LOAD-" + patient;
+    }
+}
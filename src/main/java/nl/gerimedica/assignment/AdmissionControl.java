@@ -0,0 +1,334 @@
+package nl.gerimedica.assignment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Per-client rate limiting and concurrency limits for the API, enforced by {@link AdmissionControlInterceptor}.
+ * <p>
+ * - Each client has a token bucket refilled at {@code hospital.admission.rate} tokens per second, holding
+ *   up to {@code hospital.admission.burst}; {@code hospital.admission.client-rates} overrides the rate
+ *   for named clients (the burst scales with it)
+ * - A request costs its endpoint's weight in tokens ({@code hospital.admission.costs}, default 1), so
+ *   expensive endpoints use up a client's budget faster than cheap ones
+ * - A global bucket ({@code hospital.admission.global-rate}, {@code hospital.admission.global-burst})
+ *   is charged the same cost after the client's, so many clients together cannot exceed what the
+ *   service can take, whatever number of client keys they spread over
+ * - Requests in flight are capped per client ({@code hospital.admission.client-concurrency}) and per
+ *   endpoint across all clients ({@code hospital.admission.endpoint-concurrency}), so a slow endpoint
+ *   cannot occupy every database connection
+ * - Outcomes are counted in {@code hospital.admission.requests} (tags {@code endpoint}, {@code outcome});
+ *   {@code hospital.admission.in-flight} shows the requests in flight per capped endpoint
+ * </p>
+ * Endpoints are named {@code METHOD pattern}, e.g. {@code GET /api/v1/appointments/search}. Idle clients'
+ * state expires after {@code hospital.admission.client-idle-timeout}. Limits are validated at startup:
+ * rates, bursts and concurrency limits must be positive, costs must not be negative.
+ */
+@Component
+@Slf4j
+public class AdmissionControl {
+
+    /** Why a request was turned away, used as the {@code outcome} tag. */
+    public enum Outcome {
+        ADMITTED("admitted"),
+        RATE_LIMITED("rate_limited"),
+        CONCURRENCY_LIMITED("concurrency_limited"),
+        /** The global bucket ran out: the service as a whole is at its rate limit. */
+        OVERLOADED("overloaded");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    /** Result of {@link #admit}; an admitted request must {@link #release} it when it completes. */
+    public static final class Admission {
+        private static final Admission UNLIMITED = new Admission(Outcome.ADMITTED, 0, List.of());
+
+        private final Outcome outcome;
+        private final long retryAfterSeconds;
+        private final List<Semaphore> permits;
+
+        private Admission(Outcome outcome, long retryAfterSeconds, List<Semaphore> permits) {
+            this.outcome = outcome;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.permits = permits;
+        }
+
+        public boolean isAdmitted() {
+            return outcome == Outcome.ADMITTED;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /** Seconds until a retry can succeed; 0 when admitted. */
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        /** Give back the in-flight slots taken by an admitted request. */
+        public void release() {
+            permits.forEach(Semaphore::release);
+        }
+    }
+
+    /** Token bucket of one client. A lock rather than a monitor, so waiting virtual threads do not pin. */
+    private static final class TokenBucket {
+        private final Lock lock = new ReentrantLock();
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(double ratePerSecond, double capacity) {
+            this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Take {@code cost} tokens if there are enough.
+         *
+         * @return 0 if taken, otherwise nanoseconds until there will be enough
+         */
+        private long tryConsume(double cost) {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+                refilledAt = now;
+                double needed = Math.min(cost, capacity);
+                if (tokens >= needed) {
+                    tokens -= needed;
+                    return 0;
+                }
+                return (long) Math.ceil((needed - tokens) / ratePerNano);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Give back tokens taken for a request that was rejected further on. */
+        private void refund(double cost) {
+            lock.lock();
+            try {
+                tokens = Math.min(capacity, tokens + Math.min(cost, capacity));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Retry-After for requests rejected because too many are in flight. */
+    private static final long CONCURRENCY_RETRY_AFTER_SECONDS = 1;
+
+    private final boolean enabled;
+    private final double rate;
+    private final double burst;
+    private final int clientConcurrency;
+    private final Map<String, Integer> costs;
+    private final Map<String, Double> clientRates;
+    private final Map<String, Semaphore> endpointSlots;
+    private final TokenBucket globalBucket;
+    private final Cache<String, TokenBucket> buckets;
+    private final Cache<String, Semaphore> clientSlots;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<Outcome, Counter>> counters = new ConcurrentHashMap<>();
+
+    public AdmissionControl(MeterRegistry meterRegistry,
+                            @Value("${hospital.admission.enabled:false}") boolean enabled,
+                            @Value("${hospital.admission.rate:100}") double rate,
+                            @Value("${hospital.admission.burst:200}") double burst,
+                            @Value("${hospital.admission.global-rate:1000}") double globalRate,
+                            @Value("${hospital.admission.global-burst:2000}") double globalBurst,
+                            @Value("${hospital.admission.costs:}") String costs,
+                            @Value("${hospital.admission.client-rates:}") String clientRates,
+                            @Value("${hospital.admission.client-concurrency:16}") int clientConcurrency,
+                            @Value("${hospital.admission.endpoint-concurrency:}") String endpointConcurrency,
+                            @Value("${hospital.admission.max-clients:100000}") long maxClients,
+                            @Value("${hospital.admission.client-idle-timeout:10m}") Duration clientIdleTimeout) {
+        requirePositive("rate", rate);
+        requirePositive("burst", burst);
+        requirePositive("global-rate", globalRate);
+        requirePositive("global-burst", globalBurst);
+        requirePositive("client-concurrency", clientConcurrency);
+        requirePositive("max-clients", maxClients);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.rate = rate;
+        this.burst = burst;
+        this.clientConcurrency = clientConcurrency;
+        this.costs = Map.copyOf(parseNumbers(costs, Integer::valueOf));
+        this.costs.forEach((endpoint, cost) -> {
+            if (cost < 0) {
+                throw new IllegalArgumentException("hospital.admission.costs: cost of " + endpoint + " must not be negative");
+            }
+        });
+        this.clientRates = Map.copyOf(parseNumbers(clientRates, Double::valueOf));
+        this.clientRates.forEach((client, clientRate) -> requirePositive("client-rates[" + client + "]", clientRate));
+        this.globalBucket = new TokenBucket(globalRate, globalBurst);
+        Map<String, Semaphore> slots = new HashMap<>();
+        parseNumbers(endpointConcurrency, Integer::valueOf).forEach((endpoint, limit) -> {
+            requirePositive("endpoint-concurrency[" + endpoint + "]", limit);
+            Semaphore semaphore = new Semaphore(limit);
+            slots.put(endpoint, semaphore);
+            Gauge.builder("hospital.admission.in-flight", semaphore, s -> limit - s.availablePermits())
+                .description("Requests in flight on an endpoint with a concurrency limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        });
+        this.endpointSlots = Map.copyOf(slots);
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxClients)
+            .expireAfterAccess(clientIdleTimeout)
+            .build();
+        this.clientSlots = Caffeine.newBuilder()
+            .maximumSize(maxClients)
+            .expireAfterAccess(clientIdleTimeout)
+            .build();
+        if (enabled) {
+            log.info("Admission control: {} tokens/s per client (burst {}), {} tokens/s overall (burst {}), "
+                + "{} in flight per client, costs {}, endpoint limits {}",
+                rate, burst, globalRate, globalBurst, clientConcurrency, this.costs, endpointConcurrency);
+        }
+    }
+
+    /**
+     * @return true if requests are rate limited; when false every request is admitted
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decide whether a request may proceed, taking an in-flight slot and its cost in tokens if so.
+     * Nothing is taken from a rejected request.
+     *
+     * @param endpoint {@code METHOD pattern} of the request
+     * @param client key identifying the caller
+     * @return the decision; call {@link Admission#release} once an admitted request completes
+     */
+    public Admission admit(String endpoint, String client) {
+        if (!enabled) {
+            return Admission.UNLIMITED;
+        }
+        Semaphore endpointSlot = endpointSlots.get(endpoint);
+        if (endpointSlot != null && !endpointSlot.tryAcquire()) {
+            return reject(endpoint, client, Outcome.CONCURRENCY_LIMITED, CONCURRENCY_RETRY_AFTER_SECONDS);
+        }
+        Semaphore clientSlot = clientSlots.get(client, key -> new Semaphore(clientConcurrency));
+        if (!clientSlot.tryAcquire()) {
+            if (endpointSlot != null) endpointSlot.release();
+            return reject(endpoint, client, Outcome.CONCURRENCY_LIMITED, CONCURRENCY_RETRY_AFTER_SECONDS);
+        }
+        int cost = cost(endpoint);
+        TokenBucket bucket = buckets.get(client, this::newBucket);
+        long waitNanos = bucket.tryConsume(cost);
+        Outcome limited = Outcome.RATE_LIMITED;
+        if (waitNanos == 0) {
+            // Charge the global bucket only for requests within the client's own budget
+            waitNanos = globalBucket.tryConsume(cost);
+            if (waitNanos > 0) {
+                bucket.refund(cost);
+                limited = Outcome.OVERLOADED;
+            }
+        }
+        if (waitNanos > 0) {
+            clientSlot.release();
+            if (endpointSlot != null) endpointSlot.release();
+            return reject(endpoint, client, limited, retryAfterSeconds(waitNanos));
+        }
+        count(endpoint, Outcome.ADMITTED);
+        return new Admission(Outcome.ADMITTED, 0,
+            endpointSlot != null ? List.of(clientSlot, endpointSlot) : List.of(clientSlot));
+    }
+
+    /**
+     * @return tokens a request to the endpoint costs
+     */
+    public int cost(String endpoint) {
+        return costs.getOrDefault(endpoint, 1);
+    }
+
+    private TokenBucket newBucket(String client) {
+        double clientRate = clientRates.getOrDefault(client, rate);
+        return new TokenBucket(clientRate, burst * clientRate / rate);
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return Math.max(1, (waitNanos + second - 1) / second);
+    }
+
+    private static void requirePositive(String property, double value) {
+        if (!(value > 0)) {
+            throw new IllegalArgumentException("hospital.admission." + property + " must be positive, got " + value);
+        }
+    }
+
+    private Admission reject(String endpoint, String client, Outcome outcome, long retryAfterSeconds) {
+        count(endpoint, outcome);
+        log.debug("Rejected {} for client {}: {}", endpoint, client, outcome.tag());
+        return new Admission(outcome, retryAfterSeconds, List.of());
+    }
+
+    private void count(String endpoint, Outcome outcome) {
+        counters.computeIfAbsent(endpoint, this::endpointCounters).get(outcome).increment();
+    }
+
+    private Map<Outcome, Counter> endpointCounters(String endpoint) {
+        Map<Outcome, Counter> byOutcome = new HashMap<>();
+        for (Outcome outcome : Outcome.values()) {
+            byOutcome.put(outcome, Counter.builder("hospital.admission.requests")
+                .description("API requests by admission outcome")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome.tag())
+                .register(meterRegistry));
+        }
+        return byOutcome;
+    }
+
+    /**
+     * Parse {@code key=number} pairs separated by commas, e.g.
+     * {@code GET /api/v1/appointments/search=5,POST /api/v1/appointments/bulk=5}.
+     */
+    static <N> Map<String, N> parseNumbers(String pairs, Function<String, N> parser) {
+        Map<String, N> parsed = new HashMap<>();
+        for (String pair : pairs.split(",")) {
+            String trimmed = pair.trim();
+            if (trimmed.isEmpty()) continue;
+            int separator = trimmed.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=number, got '" + trimmed + "'");
+            }
+            parsed.put(trimmed.substring(0, separator).trim(), parser.apply(trimmed.substring(separator + 1).trim()));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,27 @@
+package nl.gerimedica.assignment;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts {@link AdmissionControlInterceptor} in front of the appointment APIs, servlet and reactive,
+ * ahead of every other interceptor so rejected requests cost as little as possible.
+ */
+@Configuration
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+
+    public AdmissionControlConfig(AdmissionControlInterceptor admissionControlInterceptor) {
+        this.admissionControlInterceptor = admissionControlInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControlInterceptor)
+            .addPathPatterns("/api/v1/appointments/**", "/api/v1/reactive/appointments/**")
+            .order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,84 @@
+package nl.gerimedica.assignment;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Admits or rejects each API request through {@link AdmissionControl} before it reaches the controller.
+ * <p>
+ * - The client is identified by its remote address; the {@code hospital.admission.client-header}
+ *   header (default {@code X-Client-Id}) is only used when the request comes from one of the
+ *   {@code hospital.admission.trusted-proxies} addresses (e.g. the API gateway that authenticated
+ *   the caller), since anyone else could send a fresh value with every request to dodge the limit
+ * - Rejected requests get {@code 429 Too Many Requests} with a {@code Retry-After} header and no body
+ * - In-flight slots are held until the request completes; for asynchronous responses (streams,
+ *   reactive endpoints) that is after the async dispatch, which is not admitted a second time
+ * </p>
+ */
+@Component
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ATTRIBUTE = AdmissionControl.Admission.class.getName();
+
+    private final AdmissionControl admissionControl;
+    private final String clientHeader;
+    private final Set<String> trustedProxies;
+
+    public AdmissionControlInterceptor(AdmissionControl admissionControl,
+                                       @Value("${hospital.admission.client-header:X-Client-Id}") String clientHeader,
+                                       @Value("${hospital.admission.trusted-proxies:}") String trustedProxies) {
+        this.admissionControl = admissionControl;
+        this.clientHeader = clientHeader;
+        this.trustedProxies = Arrays.stream(trustedProxies.split(","))
+            .map(String::trim)
+            .filter(address -> !address.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (request.getDispatcherType() == DispatcherType.ASYNC || pattern == null) {
+            return true;
+        }
+        AdmissionControl.Admission admission =
+            admissionControl.admit(request.getMethod() + " " + pattern, clientKey(request));
+        if (!admission.isAdmitted()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()));
+            return false;
+        }
+        request.setAttribute(ATTRIBUTE, admission);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        AdmissionControl.Admission admission = (AdmissionControl.Admission) request.getAttribute(ATTRIBUTE);
+        if (admission != null) {
+            request.removeAttribute(ATTRIBUTE);
+            admission.release();
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (!trustedProxies.contains(address)) {
+            return address;
+        }
+        String client = request.getHeader(clientHeader);
+        return client != null && !client.isBlank() ? client : address;
+    }
+}
@@ -3,7 +3,10 @@ package nl.gerimedica.assignment;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.LocalDate;
 import java.util.Objects;
 
 /**
@@ -15,21 +18,37 @@ import java.util.Objects;
  * - Validation annotations added for input integrity.
  * - Equals/hashCode use 'id' field, per JPA standard.
  * - toString provided for debugging/logging.
+ * - IDs come from a pooled sequence so Hibernate can batch inserts (IDENTITY forces one INSERT per row).
+ * - Date is stored as a DATE column, so ordering and range scans are date-aware and indexable.
+ * - Every filtered column has an index matching the repository queries (checked by QueryPlanTest).
+ * - Second-level cached, so a cached Patient.appointments collection resolves without queries.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+    // Serves "latest appointment of a patient" as a single index seek; id breaks date ties.
+    // Also serves every lookup and delete by patient (findByPatientId, findByPatientSsn after the SSN lookup).
+    @Index(name = "idx_appointment_patient_date", columnList = "patient_id, date DESC, id DESC"),
+    // Serves date-range queries in (date, id) keyset order, and findByDate
+    @Index(name = "idx_appointment_date", columnList = "date, id"),
+    // Serves exact-reason lookups (findByReason) in id order; contains-searches go to ReasonSearchIndex
+    @Index(name = "idx_appointment_reason", columnList = "reason, id")
+})
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Reason is required")
     @Column(nullable = false)
     private String reason;
 
-    @NotBlank(message = "Date is required")
-    @Column(nullable = false, length = 10)
-    private String date;
+    @NotNull(message = "Date is required")
+    @Column(nullable = false)
+    private LocalDate date;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "patient_id", nullable = false)
@@ -39,7 +58,7 @@ public class Appointment {
     /** Default constructor for JPA. */
     public Appointment() {}
 
-    public Appointment(String reason, String date, Patient patient) {
+    public Appointment(String reason, LocalDate date, Patient patient) {
         this.reason = reason;
         this.date = date;
         this.patient = patient;
@@ -52,8 +71,8 @@ public class Appointment {
     public String getReason() { return reason; }
     public void setReason(String reason) { this.reason = reason; }
 
-    public String getDate() { return date; }
-    public void setDate(String date) { this.date = date; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
 
     public Patient getPatient() { return patient; }
     public void setPatient(Patient patient) { this.patient = patient; }
@@ -81,7 +100,7 @@ public class Appointment {
         return "Appointment{" +
                 "id=" + id +
                 ", reason='" + reason + '\'' +
-                ", date='" + date + '\'' +
+                ", date=" + date +
                 ", patient=" + (patient != null ? patient.getId() : null) +
                 '}';
     }
@@ -1,12 +1,32 @@
 package nl.gerimedica.assignment;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 /**
  * REST controller for managing appointments.
@@ -23,10 +43,45 @@ import java.util.List;
 @RequestMapping("/api/v1/appointments")
 public class AppointmentController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String DELETED_COUNT_HEADER = "X-Deleted-Count";
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+    private static final String JOB_RETRY_AFTER_SECONDS = "5";
+    private static final String WRITE_RETRY_AFTER_SECONDS = "1";
+
     private final HospitalService hospitalService;
+    private final AppointmentImportService importService;
+    private final AppointmentJobService jobService;
+    private final AppointmentReportService reportService;
+    private final AppointmentMapper appointmentMapper;
+    private final AppointmentVersions versions;
+    private final AppointmentResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+    private final int maxImportLineLength;
 
-    public AppointmentController(HospitalService hospitalService) {
+    public AppointmentController(HospitalService hospitalService,
+                                 AppointmentImportService importService,
+                                 AppointmentJobService jobService,
+                                 AppointmentReportService reportService,
+                                 AppointmentMapper appointmentMapper,
+                                 AppointmentVersions versions,
+                                 AppointmentResponseCache responseCache,
+                                 ObjectMapper objectMapper,
+                                 @Value("${hospital.import.max-line-length:8192}") int maxImportLineLength) {
         this.hospitalService = hospitalService;
+        this.importService = importService;
+        this.jobService = jobService;
+        this.reportService = reportService;
+        this.appointmentMapper = appointmentMapper;
+        this.versions = versions;
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
+        this.maxImportLineLength = maxImportLineLength;
     }
 
     /**
@@ -40,7 +95,7 @@ public class AppointmentController {
      * @param patientName the patient's name
      * @param ssn the patient's SSN
      * @param payload the bulk appointment request
-     * @return list of created appointment DTOs
+     * @return list of created appointment DTOs, or 429 Too Many Requests if the write-behind queue is full
      */
     @PostMapping("/bulk")
     public ResponseEntity<List<AppointmentDto>> createBulkAppointments(
@@ -48,50 +103,352 @@ public class AppointmentController {
             @RequestParam @NotBlank String ssn,
             @Valid @RequestBody BulkAppointmentRequest payload) {
 
-        List<AppointmentDto> created = hospitalService.bulkCreateAppointments(
-            patientName, ssn, payload.getReasons(), payload.getDates());
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        try {
+            List<AppointmentDto> created = hospitalService.bulkCreateAppointments(
+                patientName, ssn, payload.getReasons(), payload.getDates());
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, WRITE_RETRY_AFTER_SECONDS)
+                .build();
+        }
+    }
+
+    /**
+     * Stream-import appointments for many patients.
+     * The body is read line by line and committed in chunks, so uploads of any size use bounded memory.
+     * Example NDJSON line:
+     * {"patientName": "John Doe", "ssn": "123-45-6789", "reason": "Checkup", "date": "2025-02-01"}
+     * Example CSV line (header optional):
+     * John Doe,123-45-6789,Checkup,2025-02-01
+     *
+     * @param contentType application/x-ndjson or text/csv
+     * @param body the raw request body
+     * @return per-chunk success/failure summary
+     */
+    @PostMapping(value = "/import", consumes = {NDJSON, CSV})
+    public ResponseEntity<ImportSummary> importAppointments(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+
+        AppointmentImportReader.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(CSV))
+            ? AppointmentImportReader.Format.CSV
+            : AppointmentImportReader.Format.NDJSON;
+        try (AppointmentImportReader reader = new AppointmentImportReader(body, format, objectMapper,
+                maxImportLineLength)) {
+            return ResponseEntity.ok(importService.importAppointments(reader));
+        }
+    }
+
+    /**
+     * Submit appointments as a background job and return immediately.
+     * The job is validated row by row and committed in chunks; poll the URI in the
+     * {@code Location} header for progress and the final per-chunk summary.
+     * Example payload:
+     * {
+     *   "appointments": [
+     *     {"patientName": "John Doe", "ssn": "123-45-6789", "reason": "Checkup", "date": "2025-02-01"}
+     *   ]
+     * }
+     *
+     * @param payload the appointments to create
+     * @return 202 Accepted with the queued job, or 429 Too Many Requests if the job queue is full
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<AppointmentJob> submitJob(@Valid @RequestBody AppointmentJobRequest payload) {
+        try {
+            AppointmentJob job = jobService.submit(payload.getAppointments());
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/appointments/jobs/" + job.getId()))
+                .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, JOB_RETRY_AFTER_SECONDS)
+                .build();
+        }
+    }
+
+    /**
+     * Get the progress of a job, and its summary once it has finished.
+     *
+     * @param id the job id
+     * @return the job, 404 if unknown or expired
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<AppointmentJob> getJob(@PathVariable String id) {
+        return jobService.findJob(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Find appointments by keyword in reason.
+     * Find appointments by keyword in reason, one keyset page at a time.
+     * When the page is full, the {@value #NEXT_CURSOR_HEADER} response header carries the
+     * {@code afterId} to request the next page with.
+     * The response carries an ETag; while no appointment has been created or deleted since, a request
+     * with that tag in {@code If-None-Match} is answered 304 Not Modified without a query.
      * 
      * @param keyword the keyword to search for in appointment reasons
-     * @return list of matching appointment DTOs
+     * @param afterId id of the last appointment of the previous page (omit for the first page)
+     * @param limit page size, between 1 and {@value #MAX_PAGE_SIZE}
+     * @param webRequest the request, for the conditional check
+     * @return list of matching appointment DTOs, or 304 if unchanged
      */
     @GetMapping("/search")
     public ResponseEntity<List<AppointmentDto>> getAppointmentsByReason(
+            @RequestParam @NotBlank String keyword,
+            @RequestParam(required = false) @Min(0) Long afterId,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+            WebRequest webRequest) {
+        if (!versions.isEnabled()) {
+            return searchPage(hospitalService.getAppointmentsByReason(keyword, afterId, limit), limit, null);
+        }
+        String etag = versions.globalTag();
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        List<AppointmentDto> found = responseCache.get("search|" + keyword + "|" + afterId + "|" + limit + "|" + etag,
+            () -> hospitalService.getAppointmentsByReason(keyword, afterId, limit));
+        return searchPage(found, limit, etag);
+    }
+
+    /**
+     * Find appointments dated within a window, one keyset page at a time, ordered by date then id.
+     * When the page is full, the {@value #NEXT_CURSOR_HEADER} response header carries the
+     * {@code afterDate=...&afterId=...} query parameters to request the next page with.
+     *
+     * @param from first date of the window (YYYY-MM-DD, inclusive)
+     * @param to last date of the window (YYYY-MM-DD, inclusive)
+     * @param afterDate date of the last appointment of the previous page (omit for the first page)
+     * @param afterId id of the last appointment of the previous page (omit for the first page)
+     * @param limit page size, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return list of appointment DTOs in the window, 400 if the window or cursor is invalid
+     */
+    @GetMapping
+    public ResponseEntity<List<AppointmentDto>> getAppointmentsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+            @RequestParam(required = false) @Min(0) Long afterId,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        if (from.isAfter(to) || (afterDate == null) != (afterId == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<AppointmentDto> found = hospitalService.getAppointmentsByDateRange(from, to, afterDate, afterId, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (found.size() == limit) {
+            AppointmentDto last = found.get(found.size() - 1);
+            response.header(NEXT_CURSOR_HEADER, "afterDate=" + last.getDate() + "&afterId=" + last.getId());
+        }
+        return response.body(found);
+    }
+
+    /**
+     * Stream all appointments matching a keyword as one JSON array.
+     * Rows are written as they are read from the database cursor, so memory stays flat
+     * and the first bytes are sent before the query has finished. Each row goes straight to the
+     * generator through {@link AppointmentMapper#writeJson}, not through a bean serializer.
+     *
+     * @param keyword the keyword to search for in appointment reasons
+     * @return JSON array of matching appointment DTOs, written incrementally
+     */
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAppointmentsByReason(
             @RequestParam @NotBlank String keyword) {
-        List<AppointmentDto> found = hospitalService.getAppointmentsByReason(keyword);
-        return ResponseEntity.ok(found);
+        RequestPhases phases = RequestPhases.current();
+        StreamingResponseBody body = out -> {
+            // The body is written on an async thread; the cursor is read while rows are written,
+            // so database time is the loop time minus the time spent writing rows.
+            if (phases != null) {
+                phases.bind();
+            }
+            long start = System.nanoTime();
+            long[] writeNanos = new long[1];
+            long rows = 0;
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                rows = hospitalService.streamAppointmentsByReason(keyword, new Consumer<>() {
+                    private long written;
+
+                    @Override
+                    public void accept(AppointmentDto dto) {
+                        long writeStart = System.nanoTime();
+                        try {
+                            appointmentMapper.writeJson(dto, json);
+                            // Flush the first row right away, then in batches.
+                            if (written++ % STREAM_FLUSH_INTERVAL == 0) {
+                                json.flush();
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        } finally {
+                            writeNanos[0] += System.nanoTime() - writeStart;
+                        }
+                    }
+                });
+                json.writeEndArray();
+            } finally {
+                RequestPhases.add(RequestPhases.Phase.SERIALIZATION, writeNanos[0]);
+                RequestPhases.add(RequestPhases.Phase.DB, System.nanoTime() - start - writeNanos[0]);
+                RequestPhases.addRows(rows);
+                RequestPhases.unbind();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
      * Delete all appointments for a specific patient by SSN.
+     * The number of deleted appointments is returned in the {@value #DELETED_COUNT_HEADER} header.
      * 
      * @param ssn the patient's SSN
      * @return 204 No Content if successful, 404 if patient not found
      */
     @DeleteMapping
     public ResponseEntity<Void> deleteAppointmentsBySSN(@RequestParam @NotBlank String ssn) {
-        boolean deleted = hospitalService.deleteAppointmentsBySSN(ssn);
-        if (deleted) {
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        return hospitalService.deleteAppointmentsBySSN(ssn)
+            .map(deleted -> ResponseEntity.noContent()
+                .header(DELETED_COUNT_HEADER, String.valueOf(deleted))
+                .<Void>build())
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Delete all appointments for many patients in one call.
+     * Example payload:
+     * {
+     *   "ssns": ["123-45-6789", "987-65-4321"]
+     * }
+     *
+     * @param payload the SSNs to delete appointments for
+     * @return deleted count per SSN, unknown SSNs, and the total
+     */
+    @PostMapping("/delete-batch")
+    public ResponseEntity<BatchDeleteResponse> deleteAppointmentsBySSNs(@Valid @RequestBody SsnBatchRequest payload) {
+        Map<String, Integer> deleted = hospitalService.deleteAppointmentsBySSNs(payload.getSsns());
+        List<String> notFound = payload.getSsns().stream()
+            .filter(ssn -> !deleted.containsKey(ssn))
+            .distinct()
+            .toList();
+        return ResponseEntity.ok(new BatchDeleteResponse(deleted, notFound));
     }
 
     /**
      * Get the latest appointment for a patient.
+     * The response carries an ETag; while the patient's appointments are unchanged, a request with
+     * that tag in {@code If-None-Match} is answered 304 Not Modified without a query.
      * 
      * @param ssn the patient's SSN
-     * @return the latest appointment DTO if found, 404 if not found
+     * @param webRequest the request, for the conditional check
+     * @return the latest appointment DTO if found, 304 if unchanged, 404 if not found
      */
     @GetMapping("/latest")
-    public ResponseEntity<AppointmentDto> getLatestAppointment(@RequestParam @NotBlank String ssn) {
-        return hospitalService.findLatestAppointmentBySSN(ssn)
-            .map(ResponseEntity::ok)
+    public ResponseEntity<AppointmentDto> getLatestAppointment(@RequestParam @NotBlank String ssn,
+                                                               WebRequest webRequest) {
+        Optional<String> etag = versions.isEnabled() ? versions.patientTag(ssn) : Optional.empty();
+        if (etag.isEmpty()) {
+            return hospitalService.findLatestAppointmentBySSN(ssn)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+        }
+        if (webRequest.checkNotModified(etag.get())) {
+            return notModified(etag.get());
+        }
+        Optional<AppointmentDto> latest = responseCache.get("latest|" + ssn + "|" + etag.get(),
+            () -> hospitalService.findLatestAppointmentBySSN(ssn));
+        return latest
+            .map(appointment -> ResponseEntity.ok()
+                .eTag(etag.get())
+                .cacheControl(CacheControl.noCache())
+                .body(appointment))
             .orElse(ResponseEntity.notFound().build());
     }
-}
+
+    /**
+     * Get the latest appointment for many patients at once, with a single query.
+     * Example payload:
+     * {
+     *   "ssns": ["123-45-678", "987-65-432"]
+     * }
+     *
+     * @param payload up to 500 SSNs
+     * @return latest appointment per SSN; unknown SSNs and patients without appointments are absent
+     */
+    @PostMapping("/latest-batch")
+    public ResponseEntity<Map<String, AppointmentDto>> getLatestAppointments(@Valid @RequestBody SsnBatchRequest payload) {
+        return ResponseEntity.ok(hospitalService.findLatestAppointmentsBySSNs(payload.getSsns()));
+    }
+
+    /**
+     * Appointment counts per exact reason, largest first.
+     *
+     * @param limit number of reasons to return (top N), between 1 and {@value #MAX_PAGE_SIZE}
+     * @return reason counts
+     */
+    @GetMapping("/reports/reasons")
+    public ResponseEntity<List<ReasonCount>> reportByReason(
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(reportService.topReasons(limit));
+    }
+
+    /**
+     * Appointment counts per day or per month, in date order.
+     *
+     * @param from first date (YYYY-MM-DD, inclusive)
+     * @param to last date (YYYY-MM-DD, inclusive)
+     * @param bucket {@code day} (default) or {@code month}, case-insensitive
+     * @return counts per bucket that has appointments, 400 if the window or bucket is invalid
+     */
+    @GetMapping("/reports/dates")
+    public ResponseEntity<List<DateCount>> reportByDate(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String bucket) {
+        AppointmentReportService.DateBucket dateBucket = AppointmentReportService.DateBucket.parse(bucket);
+        if (from.isAfter(to) || dateBucket == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(reportService.countsByDate(from, to, dateBucket));
+    }
+
+    /**
+     * Appointment counts per patient, largest first.
+     *
+     * @param limit number of patients to return (top N), between 1 and {@value #MAX_PAGE_SIZE}
+     * @return patient counts
+     */
+    @GetMapping("/reports/patients")
+    public ResponseEntity<List<PatientCount>> reportByPatient(
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(reportService.topPatients(limit));
+    }
+
+    /**
+     * Histogram of appointments per patient: how many patients have 1, 2, 3... appointments.
+     *
+     * @return one bucket per appointment count that occurs, ascending
+     */
+    @GetMapping("/reports/patients/histogram")
+    public ResponseEntity<List<PatientHistogramBucket>> reportPatientHistogram() {
+        return ResponseEntity.ok(reportService.patientHistogram());
+    }
+
+    /** A search page with its next-page cursor and, if given, the tag read before the query. */
+    private static ResponseEntity<List<AppointmentDto>> searchPage(List<AppointmentDto> found, int limit, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (etag != null) {
+            response.eTag(etag).cacheControl(CacheControl.noCache());
+        }
+        if (found.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(found.get(found.size() - 1).getId()));
+        }
+        return response.body(found);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .build();
+    }
+}
\ No newline at end of file
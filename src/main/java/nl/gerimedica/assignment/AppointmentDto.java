@@ -3,6 +3,8 @@ package nl.gerimedica.assignment;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.NotBlank;
 
+import java.time.LocalDate;
+
 /**
  * DTO for appointment details returned by API.
 */
@@ -14,8 +16,8 @@ public class AppointmentDto {
     @NotBlank(message = "Reason is required")
     private String reason;
     
-    @NotBlank(message = "Date is required")
-    private String date;
+    @NotNull(message = "Date is required")
+    private LocalDate date;
     
     @NotNull(message = "Patient ID is required")
     private Long patientId;
@@ -23,7 +25,7 @@ public class AppointmentDto {
     // Default constructor for JSON deserialization
     public AppointmentDto() {}
     
-    public AppointmentDto(Long id, String reason, String date, Long patientId) {
+    public AppointmentDto(Long id, String reason, LocalDate date, Long patientId) {
         this.id = id;
         this.reason = reason;
         this.date = date;
@@ -37,8 +39,8 @@ public class AppointmentDto {
     public String getReason() { return reason; }
     public void setReason(String reason) { this.reason = reason; }
 
-    public String getDate() { return date; }
-    public void setDate(String date) { this.date = date; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
 
     public Long getPatientId() { return patientId; }
     public void setPatientId(Long patientId) { this.patientId = patientId; }
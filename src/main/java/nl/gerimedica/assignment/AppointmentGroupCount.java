@@ -0,0 +1,40 @@
+package nl.gerimedica.assignment;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Number of appointments sharing one (reason, date) pair.
+ * Carried by {@link AppointmentsDeletedEvent} so {@link AppointmentRollup} can subtract
+ * deleted appointments without keeping them.
+ */
+public class AppointmentGroupCount {
+
+    private final String reason;
+    private final LocalDate date;
+    private final long count;
+
+    public AppointmentGroupCount(String reason, LocalDate date, long count) {
+        this.reason = reason;
+        this.date = date;
+        this.count = count;
+    }
+
+    /**
+     * The counts taken before a DELETE, or null if the DELETE removed a different number of rows
+     * (an appointment committed in between), which makes the rollup fall back to the database.
+     */
+    static List<AppointmentGroupCount> matching(List<AppointmentGroupCount> counts, long deleted) {
+        if (counts == null) return null;
+        long counted = 0;
+        for (AppointmentGroupCount group : counts) {
+            counted += group.getCount();
+        }
+        return counted == deleted ? counts : null;
+    }
+
+    // Getters
+    public String getReason() { return reason; }
+    public LocalDate getDate() { return date; }
+    public long getCount() { return count; }
+}
@@ -0,0 +1,239 @@
+package nl.gerimedica.assignment;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Incremental reader for streaming imports.
+ * <p>
+ * Reads one line at a time from the request body, so memory use does not depend on the
+ * upload size. Supported formats:
+ * - NDJSON: one {@link AppointmentImportRow} JSON object per line
+ * - CSV: {@code patientName,ssn,reason,date} per line, optional header, RFC 4180 quoting
+ * </p>
+ * Blank lines are skipped. Lines that cannot be parsed are returned with an error instead of a row,
+ * so one bad line does not abort the import. Lines longer than the maximum line length are skipped
+ * without being buffered and returned with an error, so one huge line cannot exhaust the heap.
+ */
+public class AppointmentImportReader implements Iterator<AppointmentImportReader.Line>, Closeable {
+
+    /** Supported body formats. */
+    public enum Format { NDJSON, CSV }
+
+    /**
+     * A parsed input line: either a row or a parse error.
+     */
+    public static final class Line {
+        private final long number;
+        private final AppointmentImportRow row;
+        private final String error;
+
+        Line(long number, AppointmentImportRow row, String error) {
+            this.number = number;
+            this.row = row;
+            this.error = error;
+        }
+
+        /** 1-based line number in the upload. */
+        public long getNumber() { return number; }
+        /** The parsed row, or null if the line could not be parsed. */
+        public AppointmentImportRow getRow() { return row; }
+        /** Parse error, or null if the line was parsed. */
+        public String getError() { return error; }
+    }
+
+    private static final int CSV_COLUMNS = 4;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final Format format;
+    private final ObjectReader jsonReader;
+    private final int maxLineLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private final StringBuilder text = new StringBuilder();
+    private boolean overlong;
+    private long lineNumber;
+    private Line next;
+
+    /**
+     * @param maxLineLength longest line, in characters, that is parsed; longer ones are rejected
+     */
+    public AppointmentImportReader(InputStream body, Format format, ObjectMapper objectMapper, int maxLineLength) {
+        if (maxLineLength < 1) {
+            throw new IllegalArgumentException("maxLineLength must be positive");
+        }
+        this.reader = new InputStreamReader(body, StandardCharsets.UTF_8);
+        this.format = format;
+        this.jsonReader = objectMapper.readerFor(AppointmentImportRow.class);
+        this.maxLineLength = maxLineLength;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Line next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Line line = next;
+        next = null;
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Line readNext() {
+        try {
+            String text;
+            while ((text = readLine()) != null) {
+                lineNumber++;
+                if (overlong) {
+                    return new Line(lineNumber, null, "Line is longer than " + maxLineLength + " characters");
+                }
+                if (text.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV) {
+                    List<String> fields = parseCsv(text);
+                    if (lineNumber == 1 && "patientName".equalsIgnoreCase(fields.get(0).trim())) {
+                        continue; // header
+                    }
+                    return toLine(fields);
+                }
+                return parseJson(text);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import body at line " + lineNumber, e);
+        }
+    }
+
+    /**
+     * Read up to the next line terminator ({@code \n}, {@code \r} or {@code \r\n}), keeping at most
+     * {@code maxLineLength} characters; {@link #overlong} tells whether any were dropped.
+     *
+     * @return the line without its terminator, or null at the end of the input
+     */
+    private String readLine() throws IOException {
+        text.setLength(0);
+        overlong = false;
+        boolean any = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return any ? text.toString() : null;
+                }
+            }
+            any = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                position++;
+            }
+            int room = maxLineLength - text.length();
+            int length = position - start;
+            if (length > room) {
+                overlong = true;
+                length = room;
+            }
+            text.append(buffer, start, length);
+            if (position < limit) {
+                char terminator = buffer[position++];
+                if (terminator == '\r') {
+                    skipLineFeed();
+                }
+                return text.toString();
+            }
+        }
+    }
+
+    private void skipLineFeed() throws IOException {
+        if (position == limit) {
+            limit = Math.max(0, reader.read(buffer, 0, buffer.length));
+            position = 0;
+        }
+        if (position < limit && buffer[position] == '\n') {
+            position++;
+        }
+    }
+
+    private Line parseJson(String text) {
+        try {
+            AppointmentImportRow row = jsonReader.readValue(text);
+            if (row == null) {
+                // A literal null is valid JSON but not a record
+                return new Line(lineNumber, null, "empty record");
+            }
+            return new Line(lineNumber, row, null);
+        } catch (JsonProcessingException e) {
+            return new Line(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Line toLine(List<String> fields) {
+        if (fields.size() != CSV_COLUMNS) {
+            return new Line(lineNumber, null,
+                "Expected " + CSV_COLUMNS + " columns but found " + fields.size());
+        }
+        return new Line(lineNumber,
+            new AppointmentImportRow(fields.get(0), fields.get(1), fields.get(2), fields.get(3)), null);
+    }
+
+    /**
+     * Splits one CSV record. Quoted fields may contain commas and doubled quotes;
+     * records spanning several lines are not supported.
+     */
+    static List<String> parseCsv(String text) {
+        List<String> fields = new ArrayList<>(CSV_COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,36 @@
+package nl.gerimedica.assignment;
+
+/**
+ * One appointment line of a streaming import (NDJSON object or CSV record).
+ * Fields are kept as raw strings; {@link AppointmentImportService} validates them per row.
+ */
+public class AppointmentImportRow {
+
+    private String patientName;
+    private String ssn;
+    private String reason;
+    private String date;
+
+    // Default constructor for JSON deserialization
+    public AppointmentImportRow() {}
+
+    public AppointmentImportRow(String patientName, String ssn, String reason, String date) {
+        this.patientName = patientName;
+        this.ssn = ssn;
+        this.reason = reason;
+        this.date = date;
+    }
+
+    // Getters and setters
+    public String getPatientName() { return patientName; }
+    public void setPatientName(String patientName) { this.patientName = patientName; }
+
+    public String getSsn() { return ssn; }
+    public void setSsn(String ssn) { this.ssn = ssn; }
+
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+}
@@ -0,0 +1,227 @@
+package nl.gerimedica.assignment;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Service for streaming multi-patient appointment imports.
+ * <p>
+ * Rows are consumed from an iterator and processed in fixed-size chunks:
+ * - each chunk resolves its known patients with one {@code findBySsnIn} query and inserts the missing
+ *   ones as one batch in the chunk's own transaction, so a chunk that rolls back leaves no patients behind
+ * - if another import or {@code /bulk} request commits one of those SSNs first (a unique-key conflict),
+ *   the chunk is retried once with its missing patients resolved through the {@link PatientResolver};
+ *   patients created on that path commit on their own and stay even if the retry then fails
+ * - each chunk commits in its own transaction, so a failing chunk does not roll back earlier ones;
+ *   its persistence context ends with the transaction, keeping heap use bounded
+ * </p>
+ */
+@Service
+@Slf4j
+public class AppointmentImportService {
+
+    private static final int MAX_SSN_LENGTH = 11;
+
+    private final PatientRepository patientRepo;
+    private final PatientResolver patientResolver;
+    private final AppointmentRepository appointmentRepo;
+    private final EntityManager entityManager;
+    private final AppointmentMapper appointmentMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final int chunkSize;
+
+    public AppointmentImportService(PatientRepository patientRepo,
+                                    PatientResolver patientResolver,
+                                    AppointmentRepository appointmentRepo,
+                                    EntityManager entityManager,
+                                    AppointmentMapper appointmentMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    ApplicationEventPublisher events,
+                                    @Value("${hospital.import.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("hospital.import.chunk-size must be positive");
+        }
+        this.patientRepo = patientRepo;
+        this.patientResolver = patientResolver;
+        this.appointmentRepo = appointmentRepo;
+        this.entityManager = entityManager;
+        this.appointmentMapper = appointmentMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.events = events;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Import all lines, committing every {@code hospital.import.chunk-size} lines.
+     *
+     * @param lines parsed input lines, consumed incrementally
+     * @return per-chunk success/failure summary
+     */
+    @TrackUsage("Import appointments")
+    public ImportSummary importAppointments(Iterator<AppointmentImportReader.Line> lines) {
+        return importAppointments(lines, chunk -> { });
+    }
+
+    /**
+     * Import all lines, committing every {@code hospital.import.chunk-size} lines and reporting
+     * each chunk as soon as it has been committed or rolled back.
+     *
+     * @param lines parsed input lines, consumed incrementally
+     * @param onChunk receives each chunk result, on the importing thread
+     * @return per-chunk success/failure summary
+     */
+    @TrackUsage("Import appointments")
+    public ImportSummary importAppointments(Iterator<AppointmentImportReader.Line> lines,
+                                            Consumer<ImportChunkResult> onChunk) {
+        ImportSummary summary = new ImportSummary();
+        List<AppointmentImportReader.Line> chunk = new ArrayList<>(chunkSize);
+        while (lines.hasNext()) {
+            chunk.add(lines.next());
+            if (chunk.size() == chunkSize) {
+                addChunk(summary, chunk, onChunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            addChunk(summary, chunk, onChunk);
+        }
+
+        log.info("Imported {} of {} appointment rows in {} chunks",
+            summary.getImportedRows(), summary.getTotalRows(), summary.getChunks().size());
+        return summary;
+    }
+
+    private void addChunk(ImportSummary summary, List<AppointmentImportReader.Line> chunk,
+                          Consumer<ImportChunkResult> onChunk) {
+        ImportChunkResult result = processChunk(summary.getChunks().size(), chunk);
+        summary.addChunk(result, chunk.size());
+        onChunk.accept(result);
+    }
+
+    private ImportChunkResult processChunk(int index, List<AppointmentImportReader.Line> chunk) {
+        long firstLine = chunk.get(0).getNumber();
+        long lastLine = chunk.get(chunk.size() - 1).getNumber();
+
+        try {
+            // Validation is inside the chunk's error handling, so a row it trips over fails this chunk only
+            List<AppointmentImportRow> valid = new ArrayList<>(chunk.size());
+            String firstError = null;
+            for (AppointmentImportReader.Line line : chunk) {
+                String error = line.getError() != null ? line.getError() : validate(line.getRow());
+                if (error == null) {
+                    valid.add(line.getRow());
+                } else if (firstError == null) {
+                    firstError = "Line " + line.getNumber() + ": " + error;
+                }
+            }
+            int rejected = chunk.size() - valid.size();
+
+            if (!valid.isEmpty()) {
+                commitChunk(valid);
+            }
+            return new ImportChunkResult(index, firstLine, lastLine, valid.size(), rejected,
+                ImportChunkResult.Status.COMMITTED, firstError);
+        } catch (RuntimeException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Import chunk {} (lines {}-{}) rolled back: {}", index, firstLine, lastLine, cause);
+            return new ImportChunkResult(index, firstLine, lastLine, 0, chunk.size(),
+                ImportChunkResult.Status.FAILED, cause);
+        }
+    }
+
+    /**
+     * Commit the chunk's appointments, inserting its new patients in the same transaction. On a unique-key
+     * conflict with a concurrent creator, the new patients are resolved one by one and the chunk retried.
+     */
+    private void commitChunk(List<AppointmentImportRow> rows) {
+        Set<String> ssns = new LinkedHashSet<>();
+        rows.forEach(row -> ssns.add(row.getSsn()));
+        Map<String, Long> patientIds = new HashMap<>();
+        patientRepo.findBySsnIn(ssns).forEach(patient -> patientIds.put(patient.getSsn(), patient.getId()));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveChunk(rows, patientIds));
+        } catch (DataIntegrityViolationException e) {
+            log.info("Import chunk raced another request for a new patient; resolving its patients one by one");
+            for (AppointmentImportRow row : rows) {
+                if (!patientIds.containsKey(row.getSsn())) {
+                    patientIds.put(row.getSsn(), patientResolver.resolvePatientId(row.getPatientName(), row.getSsn()));
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> saveChunk(rows, patientIds));
+        }
+    }
+
+    private void saveChunk(List<AppointmentImportRow> rows, Map<String, Long> patientIds) {
+        Map<String, Patient> created = new LinkedHashMap<>();
+        for (AppointmentImportRow row : rows) {
+            if (!patientIds.containsKey(row.getSsn())) {
+                created.computeIfAbsent(row.getSsn(), ssn -> new Patient(row.getPatientName(), ssn));
+            }
+        }
+        if (!created.isEmpty()) {
+            // Flushed on its own so a unique-key conflict surfaces as a DataIntegrityViolationException
+            patientRepo.saveAllAndFlush(created.values());
+            log.info("Created {} new patients from import", created.size());
+        }
+
+        Map<String, Patient> patients = new HashMap<>(created);
+        List<Appointment> appointments = new ArrayList<>(rows.size());
+        for (AppointmentImportRow row : rows) {
+            Patient patient = patients.computeIfAbsent(row.getSsn(),
+                ssn -> patientRepo.getReferenceById(patientIds.get(ssn)));
+            appointments.add(new Appointment(row.getReason(), LocalDate.parse(row.getDate()), patient));
+        }
+        appointmentRepo.saveAll(appointments);
+        entityManager.flush();
+
+        for (Patient patient : created.values()) {
+            events.publishEvent(new PatientCreatedEvent(patient.getId(), patient.getSsn()));
+        }
+        events.publishEvent(new AppointmentsCreatedEvent(appointmentMapper.toDtoList(appointments)));
+    }
+
+    /**
+     * Row-level checks mirroring the entity constraints.
+     *
+     * @return an error message, or null if the row is valid
+     */
+    private static String validate(AppointmentImportRow row) {
+        if (row == null) return "empty record";
+        if (isBlank(row.getPatientName())) return "patientName is required";
+        if (isBlank(row.getSsn())) return "ssn is required";
+        if (row.getSsn().length() > MAX_SSN_LENGTH) return "ssn must be at most " + MAX_SSN_LENGTH + " characters";
+        if (isBlank(row.getReason())) return "reason is required";
+        if (isBlank(row.getDate())) return "date is required";
+        try {
+            LocalDate.parse(row.getDate());
+        } catch (DateTimeParseException e) {
+            return "date must be formatted as YYYY-MM-DD";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
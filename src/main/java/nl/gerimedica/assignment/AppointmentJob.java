@@ -0,0 +1,80 @@
+package nl.gerimedica.assignment;
+
+import java.time.Instant;
+
+/**
+ * State of one asynchronous appointment job, as returned when polling it.
+ * <p>
+ * Written by the single worker running the job and read concurrently by pollers, so every
+ * field is volatile; counters only grow and the summary is published once, when the job ends.
+ * </p>
+ */
+public class AppointmentJob {
+
+    /** Lifecycle of a job. */
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final int totalRows;
+    private final Instant submittedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long processedRows;
+    private volatile long importedRows;
+    private volatile long rejectedRows;
+    private volatile ImportSummary summary;
+    private volatile String error;
+
+    public AppointmentJob(String id, int totalRows) {
+        this.id = id;
+        this.totalRows = totalRows;
+        this.submittedAt = Instant.now();
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    /** Count a finished chunk; only called by the worker thread. */
+    void chunkDone(ImportChunkResult chunk) {
+        int rows = chunk.getImported() + chunk.getRejected();
+        processedRows += rows;
+        importedRows += chunk.getImported();
+        rejectedRows += chunk.getRejected();
+    }
+
+    void complete(ImportSummary result) {
+        summary = result;
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String cause) {
+        error = cause;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    /** @return true once the job has completed or failed */
+    public boolean isDone() {
+        Status current = status;
+        return current == Status.COMPLETED || current == Status.FAILED;
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public Status getStatus() { return status; }
+    public int getTotalRows() { return totalRows; }
+    public long getProcessedRows() { return processedRows; }
+    public long getImportedRows() { return importedRows; }
+    public long getRejectedRows() { return rejectedRows; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    /** Per-chunk results, once the job has completed; null before. */
+    public ImportSummary getSummary() { return summary; }
+    /** Why the job failed, or null. */
+    public String getError() { return error; }
+}
@@ -0,0 +1,34 @@
+package nl.gerimedica.assignment;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO for submitting an asynchronous appointment job.
+ * Each item is one appointment, in the same shape as a line of a streaming import;
+ * items are validated row by row when the job runs, and invalid ones are reported, not fatal.
+ */
+public class AppointmentJobRequest {
+
+    @NotEmpty(message = "Appointments list must not be empty")
+    @Size(max = 10000, message = "Appointments list must contain at most 10000 items")
+    private List<@NotNull(message = "Appointments must not be null") AppointmentImportRow> appointments;
+
+    // Default constructor for JSON deserialization
+    public AppointmentJobRequest() {}
+
+    public AppointmentJobRequest(List<AppointmentImportRow> appointments) {
+        this.appointments = appointments;
+    }
+
+    // Getters and setters
+    public List<AppointmentImportRow> getAppointments() {
+        return appointments;
+    }
+    public void setAppointments(List<AppointmentImportRow> appointments) {
+        this.appointments = appointments;
+    }
+}
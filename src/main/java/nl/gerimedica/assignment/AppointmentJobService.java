@@ -0,0 +1,167 @@
+package nl.gerimedica.assignment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs appointment jobs in the background, decoupling ingest from write throughput.
+ * <p>
+ * - Jobs wait in a bounded queue ({@code hospital.jobs.queue-capacity}) and are run by a fixed
+ *   number of workers ({@code hospital.jobs.workers}); when the queue is full, {@link #submit}
+ *   rejects the job so the caller can push back on the client instead of buffering without bound
+ * - Each job goes through {@link AppointmentImportService}, so it is validated row by row and
+ *   committed in chunks; progress is visible after every chunk
+ * - Finished jobs can be polled for {@code hospital.jobs.retention} after they finish, then they
+ *   are forgotten; queued and running jobs never expire, however long they take
+ * - Queue depth and rejections are published as {@code hospital.jobs.queued} and
+ *   {@code hospital.jobs.rejected}
+ * </p>
+ */
+@Service
+@Slf4j
+public class AppointmentJobService {
+
+    private final AppointmentImportService importService;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, AppointmentJob> jobs;
+    private final Counter rejected;
+
+    public AppointmentJobService(AppointmentImportService importService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${hospital.jobs.workers:2}") int workers,
+                                 @Value("${hospital.jobs.queue-capacity:16}") int queueCapacity,
+                                 @Value("${hospital.jobs.retention:1h}") Duration retention) {
+        this.importService = importService;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            task -> {
+                Thread thread = new Thread(task, "appointment-job-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.jobs = Caffeine.newBuilder()
+            .expireAfter(new FinishedJobExpiry(retention))
+            .build();
+        this.rejected = Counter.builder("hospital.jobs.rejected")
+            .description("Jobs rejected because the queue was full")
+            .register(meterRegistry);
+        Gauge.builder("hospital.jobs.queued", executor, pool -> pool.getQueue().size())
+            .description("Jobs waiting for a worker")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Queue a job for the given appointments.
+     *
+     * @param rows the appointments to create
+     * @return the queued job, to be polled with {@link #findJob}
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public AppointmentJob submit(List<AppointmentImportRow> rows) {
+        AppointmentJob job = new AppointmentJob(UUID.randomUUID().toString(), rows.size());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, rows));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.getId());
+            rejected.increment();
+            log.warn("Appointment job queue full; rejected job with {} rows", rows.size());
+            throw e;
+        }
+        log.info("Queued appointment job {} with {} rows", job.getId(), rows.size());
+        return job;
+    }
+
+    /**
+     * @param id the job id returned by {@link #submit}
+     * @return the job, or empty if unknown or past its retention
+     */
+    public Optional<AppointmentJob> findJob(String id) {
+        return Optional.ofNullable(jobs.getIfPresent(id));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void run(AppointmentJob job, List<AppointmentImportRow> rows) {
+        job.start();
+        try {
+            ImportSummary summary = importService.importAppointments(lines(rows), job::chunkDone);
+            job.complete(summary);
+            log.info("Appointment job {} imported {} of {} rows", job.getId(), summary.getImportedRows(), rows.size());
+        } catch (RuntimeException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            job.fail(cause);
+            log.error("Appointment job {} failed", job.getId(), e);
+        } finally {
+            // Start the retention clock now that the job is done
+            jobs.put(job.getId(), job);
+        }
+    }
+
+    /** Keeps jobs until they are done, then for the retention period after their last update. */
+    private static final class FinishedJobExpiry implements Expiry<String, AppointmentJob> {
+        private final long retentionNanos;
+
+        private FinishedJobExpiry(Duration retention) {
+            this.retentionNanos = retention.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String id, AppointmentJob job, long currentTime) {
+            return job.isDone() ? retentionNanos : Long.MAX_VALUE;
+        }
+
+        @Override
+        public long expireAfterUpdate(String id, AppointmentJob job, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, job, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String id, AppointmentJob job, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /** Numbered lines over the rows, created as the importer consumes them. */
+    private static Iterator<AppointmentImportReader.Line> lines(List<AppointmentImportRow> rows) {
+        Iterator<AppointmentImportRow> it = rows.iterator();
+        return new Iterator<>() {
+            private long number;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public AppointmentImportReader.Line next() {
+                return new AppointmentImportReader.Line(++number, it.next(), null);
+            }
+        };
+    }
+}
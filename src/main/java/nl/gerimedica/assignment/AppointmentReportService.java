@@ -0,0 +1,100 @@
+package nl.gerimedica.assignment;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appointment reports: counts per reason, per date bucket and per patient, and the
+ * appointments-per-patient histogram.
+ * <p>
+ * - Answered from the {@link AppointmentRollup} while it is ready, otherwise aggregated in the
+ *   database with GROUP BY queries; either way no appointment rows are loaded, so a report costs
+ *   O(groups) and not O(appointments)
+ * - Month buckets are folded from the day counts, which are already in date order
+ * </p>
+ */
+@Service
+public class AppointmentReportService {
+
+    /** Width of a date report bucket. */
+    public enum DateBucket {
+        DAY, MONTH;
+
+        /**
+         * @param name bucket name, case-insensitive
+         * @return the bucket, or null if there is none with this name
+         */
+        public static DateBucket parse(String name) {
+            for (DateBucket bucket : values()) {
+                if (bucket.name().equalsIgnoreCase(name)) {
+                    return bucket;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final AppointmentRepository appointmentRepo;
+    private final AppointmentRollup rollup;
+
+    public AppointmentReportService(AppointmentRepository appointmentRepo, AppointmentRollup rollup) {
+        this.appointmentRepo = appointmentRepo;
+        this.rollup = rollup;
+    }
+
+    /**
+     * @param limit maximum number of reasons
+     * @return the reasons with the most appointments, largest first (ties by reason)
+     */
+    @TrackUsage("Report appointments by reason")
+    public List<ReasonCount> topReasons(int limit) {
+        return rollup.isReady() ? rollup.topReasons(limit) : appointmentRepo.countByReason(Limit.of(limit));
+    }
+
+    /**
+     * @param from first date (inclusive)
+     * @param to last date (inclusive)
+     * @param bucket bucket width; a bucket is identified by its first day
+     * @return appointments per bucket in date order, buckets without appointments omitted
+     */
+    @TrackUsage("Report appointments by date")
+    public List<DateCount> countsByDate(LocalDate from, LocalDate to, DateBucket bucket) {
+        List<DateCount> days = rollup.isReady() ? rollup.countsByDate(from, to) : appointmentRepo.countByDate(from, to);
+        return bucket == DateBucket.MONTH ? foldMonths(days) : days;
+    }
+
+    /**
+     * @param limit maximum number of patients
+     * @return the patients with the most appointments, largest first (ties by patient id)
+     */
+    @TrackUsage("Report appointments by patient")
+    public List<PatientCount> topPatients(int limit) {
+        return rollup.isReady() ? rollup.topPatients(limit) : appointmentRepo.countByPatient(Limit.of(limit));
+    }
+
+    /**
+     * @return number of patients per appointment count, ascending; patients without appointments are omitted
+     */
+    @TrackUsage("Report appointments per patient histogram")
+    public List<PatientHistogramBucket> patientHistogram() {
+        return rollup.isReady() ? rollup.patientHistogram() : appointmentRepo.countPatientsByAppointments();
+    }
+
+    private static List<DateCount> foldMonths(List<DateCount> days) {
+        List<DateCount> months = new ArrayList<>();
+        DateCount current = null;
+        for (DateCount day : days) {
+            LocalDate month = day.getDate().withDayOfMonth(1);
+            if (current == null || !current.getDate().equals(month)) {
+                current = new DateCount(month, 0);
+                months.add(current);
+            }
+            current.setCount(current.getCount() + day.getCount());
+        }
+        return months;
+    }
+}
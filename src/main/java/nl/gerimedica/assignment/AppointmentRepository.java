@@ -1,9 +1,21 @@
 package nl.gerimedica.assignment;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for {@link Appointment} entities.
@@ -13,10 +25,17 @@ import java.util.List;
  * </p>
  *
  * Example custom query: {@code findByReason(String reason)}
+ * <p>
+ * Read paths that only serve API responses select straight into {@link AppointmentDto}
+ * (see {@link #DTO_SELECT}), so no entities are hydrated, tracked or snapshotted for dirty checking.
+ * </p>
  */
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
+    /** Constructor expression selecting an appointment as a DTO; the patient id comes from the FK column. */
+    String DTO_SELECT = "SELECT new nl.gerimedica.assignment.AppointmentDto(a.id, a.reason, a.date, a.patient.id) ";
+
     /**
      * Find all appointments with a specific reason.
      *
@@ -33,12 +52,90 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
      */
     List<Appointment> findByReasonContainingIgnoreCase(String reasonKeyword);
 
+    /**
+     * Keyset page of appointments whose reason contains the keyword (case-insensitive),
+     * ordered by id and starting after the given id.
+     * Same matching as {@link #findByReasonContainingIgnoreCase}: LIKE wildcards in the keyword are escaped.
+     *
+     * @param keyword keyword to search for in appointment reasons
+     * @param afterId only return appointments with a larger id (0 for the first page)
+     * @param limit maximum number of rows to return
+     * @return up to {@code limit} matching appointment DTOs in ascending id order
+     */
+    default List<AppointmentDto> findPageByReason(String keyword, Long afterId, Limit limit) {
+        return findPageByReasonLike(containsPattern(keyword), afterId, limit);
+    }
+
+    @Query(DTO_SELECT + "FROM Appointment a WHERE upper(a.reason) LIKE upper(:pattern) ESCAPE '\\' "
+         + "AND a.id > :afterId ORDER BY a.id")
+    List<AppointmentDto> findPageByReasonLike(@Param("pattern") String pattern, @Param("afterId") Long afterId,
+                                              Limit limit);
+
+    /**
+     * Stream all appointments whose reason contains the keyword (case-insensitive), ordered by id.
+     * Rows are fetched from the cursor in batches; the caller must consume the stream inside a
+     * transaction and close it.
+     *
+     * @param keyword keyword to search for in appointment reasons
+     * @return lazily fetched stream of matching appointment DTOs
+     */
+    default Stream<AppointmentDto> streamByReason(String keyword) {
+        return streamByReasonLike(containsPattern(keyword));
+    }
+
+    @Query(DTO_SELECT + "FROM Appointment a WHERE upper(a.reason) LIKE upper(:pattern) ESCAPE '\\' ORDER BY a.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<AppointmentDto> streamByReasonLike(@Param("pattern") String pattern);
+
+    /**
+     * LIKE pattern matching values that contain the keyword literally, with {@code %}, {@code _}
+     * and the escape character itself escaped, as derived {@code Containing} queries do.
+     */
+    static String containsPattern(String keyword) {
+        return "%" + EscapeCharacter.DEFAULT.escape(keyword) + "%";
+    }
+
+    /**
+     * Load appointments by id, in ascending id order.
+     *
+     * @param ids appointment ids, e.g. a page returned by {@link ReasonSearchIndex#search}
+     * @return DTOs of the appointments that still exist, ordered by id
+     */
+    @Query(DTO_SELECT + "FROM Appointment a WHERE a.id IN :ids ORDER BY a.id")
+    List<AppointmentDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream every appointment as a DTO, without managing entities, for building in-memory indexes.
+     * Must be consumed inside a transaction and closed.
+     *
+     * @return lazily fetched stream of all appointments
+     */
+    @Query(DTO_SELECT + "FROM Appointment a")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<AppointmentDto> streamAllForIndex();
+
     /**
      * Find appointments by date.
-     * @param date appointment date in format "YYYY-MM-DD"
+     * @param date appointment date
      * @return list of appointments on the specified date
      */
-    List<Appointment> findByDate(String date);
+    List<Appointment> findByDate(LocalDate date);
+
+    /**
+     * Find appointments dated between {@code from} and {@code to} (inclusive), in (date, id) order.
+     * Keyset paging: rows on {@code from} itself are only returned if their id is greater than
+     * {@code afterId}, so the next page starts at the last row's date with its id as {@code afterId}.
+     * Served by a range scan of the (date, id) index.
+     * @param from first date of the window, or the last date of the previous page
+     * @param to last date of the window
+     * @param afterId id of the last row of the previous page, 0 for the first page
+     * @param limit page size
+     * @return list of appointment DTOs in the window
+     */
+    @Query(DTO_SELECT + "FROM Appointment a WHERE a.date >= :from AND a.date <= :to "
+         + "AND (a.date > :from OR a.id > :afterId) ORDER BY a.date, a.id")
+    List<AppointmentDto> findByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                      @Param("afterId") Long afterId, Limit limit);
 
     /**
      * Find appointments by patient ID.
@@ -54,5 +151,102 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
      */
     List<Appointment> findByPatientSsn(String patientSsn);
 
+    /**
+     * Find the most recent appointment of a patient (ties broken by highest id).
+     * The inner query selects only the id, so it is answered from the
+     * (patient_id, date DESC, id DESC) index alone and stops at the first entry;
+     * the outer query is a primary-key lookup. The whole history is never read or sorted.
+     * @param patientId the patient's ID
+     * @return the latest appointment DTO, empty if the patient has none
+     */
+    @Query(DTO_SELECT + "FROM Appointment a WHERE a.id = ("
+         + "SELECT l.id FROM Appointment l WHERE l.patient.id = :patientId "
+         + "ORDER BY l.patient.id, l.date DESC, l.id DESC LIMIT 1)")
+    Optional<AppointmentDto> findLatestByPatientId(@Param("patientId") Long patientId);
+
+    /**
+     * Find the most recent appointment of each of many patients in one query.
+     * Patients are found through the SSN unique index; for each, the same top-1 subquery as
+     * {@link #findLatestByPatientId} picks the latest id from the (patient_id, date DESC, id DESC)
+     * index, so the cost is one index seek per patient however long their histories are.
+     * A {@code row_number()} window over the patients' appointments would read every history instead.
+     * @param ssns the patients' SSNs
+     * @return one row per patient that has appointments; unknown SSNs and patients without
+     *         appointments are absent
+     */
+    @Query("SELECT new nl.gerimedica.assignment.PatientLatestAppointment(p.ssn, a.id, a.reason, a.date, p.id) "
+         + "FROM Patient p, Appointment a WHERE p.ssn IN :ssns AND a.id = ("
+         + "SELECT l.id FROM Appointment l WHERE l.patient.id = p.id "
+         + "ORDER BY l.patient.id, l.date DESC, l.id DESC LIMIT 1)")
+    List<PatientLatestAppointment> findLatestBySsnIn(@Param("ssns") Collection<String> ssns);
+
+    /**
+     * Delete all appointments of a patient with a single set-based statement,
+     * without loading the entities.
+     * @param patientId the patient's ID
+     * @return number of deleted appointments
+     */
+    @Modifying
+    @Query("DELETE FROM Appointment a WHERE a.patient.id = :patientId")
+    int deleteByPatientId(@Param("patientId") Long patientId);
+
+    /**
+     * Number of appointments per exact reason, largest first (ties by reason).
+     * Aggregated in the database; only one row per reason is returned.
+     * @param limit maximum number of reasons, e.g. {@code Limit.of(10)} for the top 10
+     * @return reason counts
+     */
+    @Query("SELECT new nl.gerimedica.assignment.ReasonCount(a.reason, count(a)) FROM Appointment a "
+         + "GROUP BY a.reason ORDER BY count(a) DESC, a.reason")
+    List<ReasonCount> countByReason(Limit limit);
+
+    /**
+     * Number of appointments per day between {@code from} and {@code to} (inclusive), in date order.
+     * Aggregated in the database from a range scan of the (date, id) index.
+     * @param from first date
+     * @param to last date
+     * @return one row per day that has appointments
+     */
+    @Query("SELECT new nl.gerimedica.assignment.DateCount(a.date, count(a)) FROM Appointment a "
+         + "WHERE a.date >= :from AND a.date <= :to GROUP BY a.date ORDER BY a.date")
+    List<DateCount> countByDate(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Number of appointments per day, over the whole table, in date order.
+     * @return one row per day that has appointments
+     */
+    @Query("SELECT new nl.gerimedica.assignment.DateCount(a.date, count(a)) FROM Appointment a "
+         + "GROUP BY a.date ORDER BY a.date")
+    List<DateCount> countByDate();
+
+    /**
+     * Number of appointments per patient, largest first (ties by patient id).
+     * @param limit maximum number of patients
+     * @return patient counts
+     */
+    @Query("SELECT new nl.gerimedica.assignment.PatientCount(a.patient.id, count(a)) FROM Appointment a "
+         + "GROUP BY a.patient.id ORDER BY count(a) DESC, a.patient.id")
+    List<PatientCount> countByPatient(Limit limit);
+
+    /**
+     * Appointments-per-patient histogram: for every appointment count, how many patients have it.
+     * Patients without appointments are not counted.
+     * @return one row per distinct appointment count, ascending
+     */
+    @Query("SELECT new nl.gerimedica.assignment.PatientHistogramBucket(c.appointments, count(*)) "
+         + "FROM (SELECT count(a.id) AS appointments FROM Appointment a GROUP BY a.patient.id) c "
+         + "GROUP BY c.appointments ORDER BY c.appointments")
+    List<PatientHistogramBucket> countPatientsByAppointments();
+
+    /**
+     * Number of appointments per (reason, date) of the given patients, e.g. of the appointments
+     * about to be deleted, so {@link AppointmentRollup} can subtract them.
+     * @param patientIds the patients' IDs
+     * @return one row per (reason, date) pair
+     */
+    @Query("SELECT new nl.gerimedica.assignment.AppointmentGroupCount(a.reason, a.date, count(a)) "
+         + "FROM Appointment a WHERE a.patient.id IN :patientIds GROUP BY a.reason, a.date")
+    List<AppointmentGroupCount> countGroupsByPatientIdIn(@Param("patientIds") Collection<Long> patientIds);
+
     // Add more derived or @Query methods as needed
 }
@@ -0,0 +1,65 @@
+package nl.gerimedica.assignment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of computed {@code /latest} and {@code /search} results, shared by all clients.
+ * <p>
+ * - Keys include the endpoint, its parameters and the {@link AppointmentVersions} tag the result was
+ *   computed under, so a cached result is never served after its data has changed
+ * - The TTL ({@code hospital.http-cache.response-ttl}, 0 to disable) only bounds how long superseded
+ *   entries linger; the size is bounded by {@code hospital.http-cache.response-max-size}
+ * - Hit/miss metrics are published as {@code cache.*} meters named {@code appointment.responses}
+ * </p>
+ * A dashboard polling without {@code If-None-Match}, or many dashboards asking the same question,
+ * then cost one query per change rather than one per poll.
+ */
+@Component
+public class AppointmentResponseCache {
+
+    private final Cache<String, Object> responses;
+
+    public AppointmentResponseCache(MeterRegistry meterRegistry,
+                                    @Value("${hospital.http-cache.response-ttl:5s}") Duration ttl,
+                                    @Value("${hospital.http-cache.response-max-size:10000}") long maxSize) {
+        this.responses = ttl.isZero() ? null : Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        if (responses != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, responses, "appointment.responses");
+        }
+    }
+
+    /**
+     * Get a cached result, computing it on a miss. The result is computed outside the cache's locks,
+     * so a query never runs while holding one (which would also pin a virtual thread); concurrent
+     * misses for the same key may each compute it.
+     *
+     * @param key endpoint, parameters and version tag
+     * @param loader computes the result; must not return null
+     * @return the cached or computed result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        if (responses == null) {
+            return loader.get();
+        }
+        Object cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T loaded = loader.get();
+        responses.put(key, loaded);
+        return loaded;
+    }
+}
@@ -0,0 +1,343 @@
+package nl.gerimedica.assignment;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory appointment counts per reason, per day and per patient, for the report endpoints.
+ * <p>
+ * - Loaded with three GROUP BY queries before the application accepts requests, so it starts
+ *   consistent with the database without a race against concurrent writes
+ * - Kept in sync by the after-commit {@link AppointmentsCreatedEvent} and
+ *   {@link AppointmentsDeletedEvent}; deletes carry the (reason, date) counts they removed
+ * - Holds one entry per reason, day and patient, never per appointment, so memory and report
+ *   time are O(groups)
+ * - Reason and day counts are signed and only dropped at exactly zero, so a delete whose event
+ *   overtakes the event of a create it removed rows of still adds up once both have arrived
+ * - Every {@code hospital.reports.rollup.verify-interval} the rollup checks itself: its reason,
+ *   day and patient totals must agree, and its total must match the database's row count on two
+ *   checks in a row (one mismatch may just be an event still in flight). A rollup that fails a
+ *   check, or lost track of a delete, is rebuilt from the database
+ * </p>
+ * If a delete arrives without its removed counts, the rollup can no longer be trusted:
+ * {@link #isReady()} turns false and reports go back to the database until the next rebuild.
+ * A rebuild that races with writes may be off by those writes; the following checks catch that.
+ * The rollup only sees writes made through this instance; disable it
+ * ({@code hospital.reports.rollup.enabled=false}) when several instances share a database.
+ */
+@Component
+@Slf4j
+public class AppointmentRollup implements SmartInitializingSingleton {
+
+    private final AppointmentRepository appointmentRepo;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final Duration verifyInterval;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Long> countsByReason = new HashMap<>();
+    private final TreeMap<LocalDate, Long> countsByDate = new TreeMap<>();
+    private final Map<Long, Long> countsByPatient = new HashMap<>();
+    private volatile boolean ready;
+    /** The previous check found a different total in the database; only touched by {@link #verify}. */
+    private boolean totalMismatch;
+    private ScheduledExecutorService verifier;
+
+    public AppointmentRollup(AppointmentRepository appointmentRepo,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${hospital.reports.rollup.enabled:true}") boolean enabled,
+                             @Value("${hospital.reports.rollup.verify-interval:1m}") Duration verifyInterval) {
+        this.appointmentRepo = appointmentRepo;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.verifyInterval = verifyInterval;
+    }
+
+    /**
+     * @return true if writes are tracked, i.e. deletes should report the counts they remove
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true while the rollup matches the committed appointments and can answer reports
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reasons with the most appointments, largest first (ties by reason).
+     */
+    public List<ReasonCount> topReasons(int limit) {
+        lock.readLock().lock();
+        try {
+            return top(countsByReason, limit, ReasonCount::new);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appointments per day between {@code from} and {@code to} (inclusive), in date order.
+     */
+    public List<DateCount> countsByDate(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            Map<LocalDate, Long> window = countsByDate.subMap(from, true, to, true);
+            List<DateCount> result = new ArrayList<>(window.size());
+            window.forEach((date, count) -> {
+                if (count > 0) result.add(new DateCount(date, count));
+            });
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Patients with the most appointments, largest first (ties by patient id).
+     */
+    public List<PatientCount> topPatients(int limit) {
+        lock.readLock().lock();
+        try {
+            return top(countsByPatient, limit, PatientCount::new);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of patients per appointment count, ascending.
+     */
+    public List<PatientHistogramBucket> patientHistogram() {
+        TreeMap<Long, Long> histogram = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long count : countsByPatient.values()) {
+                if (count > 0) histogram.merge(count, 1L, Long::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<PatientHistogramBucket> result = new ArrayList<>(histogram.size());
+        histogram.forEach((appointments, patients) -> result.add(new PatientHistogramBucket(appointments, patients)));
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentsCreated(AppointmentsCreatedEvent event) {
+        if (!ready) return;
+        lock.writeLock().lock();
+        try {
+            for (AppointmentDto appointment : event.getAppointments()) {
+                add(countsByReason, appointment.getReason(), 1);
+                add(countsByDate, appointment.getDate(), 1);
+                add(countsByPatient, appointment.getPatientId(), 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentsDeleted(AppointmentsDeletedEvent event) {
+        if (!ready) return;
+        if (event.getRemovedGroups() == null) {
+            ready = false;
+            log.warn("Appointments deleted without their counts; reports fall back to the database");
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (AppointmentGroupCount group : event.getRemovedGroups()) {
+                add(countsByReason, group.getReason(), -group.getCount());
+                add(countsByDate, group.getDate(), -group.getCount());
+            }
+            event.getPatientIds().forEach(countsByPatient::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Load the counts before the web server starts, so no write can slip in between the queries.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            log.info("Appointment rollup disabled; reports are aggregated in the database");
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Failed to load appointment rollup; reports use the database until it is rebuilt", e);
+        }
+        if (!verifyInterval.isZero()) {
+            verifier = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "rollup-verifier");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMs = verifyInterval.toMillis();
+            verifier.scheduleWithFixedDelay(this::verifyQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (verifier != null) {
+            verifier.shutdownNow();
+        }
+    }
+
+    /**
+     * Check the rollup against itself and the database, rebuilding it if it is unready or has drifted.
+     *
+     * @return true if the rollup was rebuilt
+     */
+    boolean verify() {
+        if (!enabled) return false;
+        String drift = null;
+        if (!ready) {
+            drift = "it lost track of a delete";
+        } else {
+            long[] totals = totals();
+            if (totals[0] != totals[1] || totals[0] != totals[2]) {
+                drift = "its reason, day and patient totals differ (" + totals[0] + ", " + totals[1] + ", "
+                    + totals[2] + ")";
+            } else {
+                long stored = appointmentRepo.count();
+                boolean mismatch = stored != totals[0];
+                if (mismatch && totalMismatch) {
+                    drift = "it counts " + totals[0] + " appointments, the database " + stored;
+                }
+                totalMismatch = mismatch;
+            }
+        }
+        if (drift == null) return false;
+        log.warn("Rebuilding appointment rollup because {}", drift);
+        rebuild();
+        totalMismatch = false;
+        return true;
+    }
+
+    private void verifyQuietly() {
+        try {
+            verify();
+        } catch (RuntimeException e) {
+            log.warn("Failed to verify appointment rollup", e);
+        }
+    }
+
+    /** Sums of the reason, day and patient counts; equal whenever the rollup is consistent. */
+    private long[] totals() {
+        lock.readLock().lock();
+        try {
+            return new long[] {sum(countsByReason), sum(countsByDate), sum(countsByPatient)};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Load the counts with GROUP BY queries, then replace the current ones with them in one step.
+     */
+    private void rebuild() {
+        long start = System.nanoTime();
+        Map<String, Long> reasons = new HashMap<>();
+        Map<LocalDate, Long> dates = new HashMap<>();
+        Map<Long, Long> patients = new HashMap<>();
+        readOnlyTx.executeWithoutResult(status -> {
+            for (ReasonCount row : appointmentRepo.countByReason(Limit.unlimited())) {
+                reasons.put(row.getReason(), row.getCount());
+            }
+            for (DateCount row : appointmentRepo.countByDate()) {
+                dates.put(row.getDate(), row.getCount());
+            }
+            for (PatientCount row : appointmentRepo.countByPatient(Limit.unlimited())) {
+                patients.put(row.getPatientId(), row.getCount());
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            countsByReason.clear();
+            countsByReason.putAll(reasons);
+            countsByDate.clear();
+            countsByDate.putAll(dates);
+            countsByPatient.clear();
+            countsByPatient.putAll(patients);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Appointment rollup loaded {} reasons, {} days and {} patients in {} ms",
+            reasons.size(), dates.size(), patients.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /** Add a signed delta, dropping the entry when it reaches exactly zero. */
+    private static <K> void add(Map<K, Long> counts, K key, long delta) {
+        counts.merge(key, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+
+    private static long sum(Map<?, Long> counts) {
+        long total = 0;
+        for (long count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * The {@code limit} largest counts, largest first, ties by ascending key.
+     * Keeps a heap of at most {@code limit} entries: O(groups * log limit).
+     */
+    private static <K extends Comparable<K>, R> List<R> top(Map<K, Long> counts, int limit,
+                                                            BiFunction<K, Long, R> row) {
+        Comparator<Map.Entry<K, Long>> rank = Map.Entry.<K, Long>comparingByValue().reversed()
+            .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<K, Long>> heap = new PriorityQueue<>(rank.reversed());
+        for (Map.Entry<K, Long> entry : counts.entrySet()) {
+            if (entry.getValue() <= 0) continue;
+            if (heap.size() < limit) {
+                heap.add(Map.entry(entry.getKey(), entry.getValue()));
+            } else if (rank.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        List<Map.Entry<K, Long>> sorted = new ArrayList<>(heap);
+        sorted.sort(rank);
+        List<R> result = new ArrayList<>(sorted.size());
+        for (Map.Entry<K, Long> entry : sorted) {
+            result.add(row.apply(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+}
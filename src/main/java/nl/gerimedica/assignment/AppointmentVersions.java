@@ -0,0 +1,106 @@
+package nl.gerimedica.assignment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for appointment data, used as ETags so unchanged {@code /latest} and {@code /search}
+ * results can be answered with 304 Not Modified without touching the database.
+ * <p>
+ * - A global version is bumped by every committed create or delete of appointments
+ * - Each patient's version is the global version of the last change to its appointments, so a
+ *   patient whose entry was evicted ({@code hospital.http-cache.max-patients}) can fall back to the
+ *   highest evicted version: possibly newer than needed, never older
+ * - Versions only move after the transaction has committed. Callers read the version before
+ *   querying, so a response is never tagged with a version newer than its data
+ * - Tags include a random per-start epoch, so tags from before a restart never match
+ * </p>
+ * Only writes made through this instance are seen; set {@code hospital.http-cache.enabled=false}
+ * when several instances share a database.
+ */
+@Component
+public class AppointmentVersions {
+
+    private final boolean enabled;
+    private final PatientCache patientCache;
+    private final String epoch = Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicLong evictedFloor = new AtomicLong();
+    private final Cache<Long, Long> patientVersions;
+
+    public AppointmentVersions(PatientCache patientCache,
+                               @Value("${hospital.http-cache.enabled:true}") boolean enabled,
+                               @Value("${hospital.http-cache.max-patients:100000}") long maxPatients) {
+        this.patientCache = patientCache;
+        this.enabled = enabled;
+        // The eviction listener runs while the entry is being removed, so the floor is raised
+        // before a reader can miss the entry
+        this.patientVersions = Caffeine.newBuilder()
+            .maximumSize(maxPatients)
+            .<Long, Long>evictionListener((patientId, version, cause) ->
+                evictedFloor.accumulateAndGet(version, Math::max))
+            .build();
+    }
+
+    /**
+     * @return true if responses should carry ETags and honour {@code If-None-Match}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return ETag for results that depend on all appointments, e.g. a search
+     */
+    public String globalTag() {
+        return tag(global.get());
+    }
+
+    /**
+     * ETag for results that depend on one patient's appointments. The SSN is resolved through the
+     * {@link PatientCache}, so known and recently looked-up SSNs cost no query.
+     *
+     * @param ssn the patient's SSN
+     * @return the tag, or empty if no patient has this SSN
+     */
+    public Optional<String> patientTag(String ssn) {
+        return patientCache.findPatientId(ssn).map(patientId -> {
+            Long version = patientVersions.getIfPresent(patientId);
+            return tag(version != null ? version : evictedFloor.get());
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentsCreated(AppointmentsCreatedEvent event) {
+        Set<Long> patientIds = new HashSet<>();
+        for (AppointmentDto appointment : event.getAppointments()) {
+            patientIds.add(appointment.getPatientId());
+        }
+        bump(patientIds);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentsDeleted(AppointmentsDeletedEvent event) {
+        bump(event.getPatientIds());
+    }
+
+    private void bump(Set<Long> patientIds) {
+        long version = global.incrementAndGet();
+        for (Long patientId : patientIds) {
+            patientVersions.asMap().merge(patientId, version, Math::max);
+        }
+    }
+
+    private String tag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,301 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Opt-in write-behind buffer for small bulk creates ({@code hospital.write-behind.enabled}).
+ * <p>
+ * - {@link #submit} queues a patient's appointments in a bounded queue
+ *   ({@code hospital.write-behind.queue-capacity} requests) and returns a future
+ * - One flusher thread commits everything queued as a single transaction (a group commit) once
+ *   {@code hospital.write-behind.max-rows} rows are waiting or {@code hospital.write-behind.max-delay}
+ *   has passed since the first of them arrived
+ * - Each future completes with its own DTOs only after the group has committed, so a caller that
+ *   waits for it still answers only with durable rows
+ * - If a group fails, its requests are retried one transaction each, so one bad request fails alone;
+ *   anything else that goes wrong while flushing fails that group's futures, and the flusher carries on
+ * - Callers wait at most {@code hospital.write-behind.commit-timeout} for their future, then {@link #cancel}
+ *   it; a write the flusher has not taken yet is dropped, so it can never commit after its caller gave up
+ * - Queue depth and rows per commit are published as {@code hospital.write-behind.queued} and
+ *   {@code hospital.write-behind.batch.rows}
+ * </p>
+ * Rows still queued at shutdown are flushed before the buffer stops; submitting and stopping share a
+ * lock, so no write can be queued after the flusher has drained the queue for the last time.
+ */
+@Component
+@Slf4j
+public class AppointmentWriteBuffer {
+
+    /** How long the idle flusher waits before checking whether it should stop. */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    /** One caller's appointments, waiting to be committed. */
+    private static final class PendingWrite {
+        private final Long patientId;
+        private final List<String> reasons;
+        private final List<LocalDate> dates;
+        private final int rows;
+        private final CompletableFuture<List<AppointmentDto>> result = new CompletableFuture<>();
+        /** Set once by whoever decides the write's fate: the flusher taking it, or a caller cancelling it. */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private PendingWrite(Long patientId, List<String> reasons, List<LocalDate> dates) {
+            this.patientId = patientId;
+            this.reasons = reasons;
+            this.dates = dates;
+            this.rows = Math.min(reasons.size(), dates.size());
+        }
+    }
+
+    private final PatientRepository patientRepo;
+    private final AppointmentRepository appointmentRepo;
+    private final AppointmentMapper appointmentMapper;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int maxRows;
+    private final long maxDelayNanos;
+    private final Duration commitTimeout;
+    private final BlockingQueue<PendingWrite> queue;
+    private final DistributionSummary batchRows;
+
+    /** Guards {@link #running} against writes being queued while the buffer stops. */
+    private final Lock lifecycle = new ReentrantLock();
+    private Thread flusher;
+    private volatile boolean running;
+
+    public AppointmentWriteBuffer(PatientRepository patientRepo, AppointmentRepository appointmentRepo,
+                                  AppointmentMapper appointmentMapper, ApplicationEventPublisher events,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  @Value("${hospital.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${hospital.write-behind.max-rows:500}") int maxRows,
+                                  @Value("${hospital.write-behind.max-delay:5ms}") Duration maxDelay,
+                                  @Value("${hospital.write-behind.queue-capacity:2000}") int queueCapacity,
+                                  @Value("${hospital.write-behind.commit-timeout:30s}") Duration commitTimeout) {
+        this.patientRepo = patientRepo;
+        this.appointmentRepo = appointmentRepo;
+        this.appointmentMapper = appointmentMapper;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxRows = maxRows;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.commitTimeout = commitTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchRows = DistributionSummary.builder("hospital.write-behind.batch.rows")
+            .description("Appointments committed per group commit")
+            .baseUnit("rows")
+            .register(meterRegistry);
+        Gauge.builder("hospital.write-behind.queued", queue, BlockingQueue::size)
+            .description("Bulk creates waiting for the next group commit")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return true if bulk creates should go through {@link #submit}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return how long a caller should wait for a submitted write before giving up on it
+     */
+    public Duration getCommitTimeout() {
+        return commitTimeout;
+    }
+
+    /**
+     * Queue appointments for the next group commit.
+     *
+     * @param patientId the (committed) patient the appointments belong to
+     * @param reasons appointment reasons
+     * @param dates appointment dates, paired with the reasons by position
+     * @return completes with the created DTOs once they are committed, or exceptionally if they could not be
+     * @throws RejectedExecutionException if the queue is full or the buffer is not running
+     */
+    public CompletableFuture<List<AppointmentDto>> submit(Long patientId, List<String> reasons, List<LocalDate> dates) {
+        PendingWrite write = new PendingWrite(patientId, reasons, dates);
+        lifecycle.lock();
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("Write-behind buffer is not running");
+            }
+            if (!queue.offer(write)) {
+                throw new RejectedExecutionException("Write-behind queue is full");
+            }
+        } finally {
+            lifecycle.unlock();
+        }
+        return write.result;
+    }
+
+    /**
+     * Withdraw a submitted write that the flusher has not taken yet; its future then fails with a
+     * {@link RejectedExecutionException}.
+     *
+     * @param result the future returned by {@link #submit}
+     * @return true if the write was withdrawn and will never be committed, false if the flusher already
+     *         has it (its future will still complete with the commit's outcome)
+     */
+    public boolean cancel(CompletableFuture<List<AppointmentDto>> result) {
+        for (PendingWrite write : queue) {
+            if (write.result == result) {
+                if (!write.claimed.compareAndSet(false, true)) {
+                    return false;
+                }
+                queue.remove(write);
+                write.result.completeExceptionally(new RejectedExecutionException("Write-behind write cancelled"));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        flusher = new Thread(this::flushLoop, "appointment-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Write-behind enabled: group commits of up to {} rows every {} ms",
+            maxRows, TimeUnit.NANOSECONDS.toMillis(maxDelayNanos));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) return;
+        lifecycle.lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.unlock();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        // Only left over if the flusher did not finish in time
+        for (PendingWrite write; (write = queue.poll()) != null; ) {
+            if (!write.claimed.compareAndSet(false, true)) continue;
+            write.result.completeExceptionally(new RejectedExecutionException("Write-behind buffer stopped"));
+        }
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> group = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                collect(group);
+                try {
+                    flush(group);
+                } catch (Throwable e) {
+                    // Whatever escaped, fail this group only; a dead flusher would hang every later request
+                    log.error("Flushing {} bulk creates failed; failing them and carrying on", group.size(), e);
+                    group.forEach(write -> write.result.completeExceptionally(e));
+                } finally {
+                    group.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait for a first write, then keep taking writes until the group is full or its delay is up.
+     * While stopping, only takes what is already queued. Writes cancelled in the meantime are skipped.
+     */
+    private void collect(List<PendingWrite> group) throws InterruptedException {
+        int rows = 0;
+        long deadline = 0;
+        while (rows < maxRows) {
+            PendingWrite next;
+            if (group.isEmpty()) {
+                next = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (next == null) return;
+            } else {
+                next = running
+                    ? queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                    : queue.poll();
+                if (next == null) break;
+            }
+            if (!next.claimed.compareAndSet(false, true)) continue;
+            if (group.isEmpty()) {
+                deadline = System.nanoTime() + maxDelayNanos;
+            }
+            group.add(next);
+            rows += next.rows;
+        }
+    }
+
+    private void flush(List<PendingWrite> group) {
+        if (group.isEmpty()) return;
+        try {
+            List<List<AppointmentDto>> created = tx.execute(status -> save(group));
+            int rows = 0;
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).result.complete(created.get(i));
+                rows += created.get(i).size();
+            }
+            batchRows.record(rows);
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} bulk creates failed; retrying them one by one", group.size(), e);
+            for (PendingWrite write : group) {
+                try {
+                    List<AppointmentDto> created = tx.execute(status -> save(List.of(write)).get(0));
+                    batchRows.record(created.size());
+                    write.result.complete(created);
+                } catch (RuntimeException single) {
+                    write.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert the writes' appointments in the current transaction and publish them as one event.
+     *
+     * @return created DTOs per write, in the order of the writes
+     */
+    private List<List<AppointmentDto>> save(List<PendingWrite> writes) {
+        List<Appointment> appointments = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            Patient patient = patientRepo.getReferenceById(write.patientId);
+            for (int i = 0; i < write.rows; i++) {
+                appointments.add(new Appointment(write.reasons.get(i), write.dates.get(i), patient));
+            }
+        }
+        List<AppointmentDto> saved = appointmentMapper.toDtoList(appointmentRepo.saveAll(appointments));
+        events.publishEvent(new AppointmentsCreatedEvent(saved));
+
+        List<List<AppointmentDto>> perWrite = new ArrayList<>(writes.size());
+        int offset = 0;
+        for (PendingWrite write : writes) {
+            perWrite.add(saved.subList(offset, offset + write.rows));
+            offset += write.rows;
+        }
+        return perWrite;
+    }
+}
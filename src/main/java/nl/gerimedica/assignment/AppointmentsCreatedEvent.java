@@ -0,0 +1,20 @@
+package nl.gerimedica.assignment;
+
+import java.util.List;
+
+/**
+ * Published when appointments have been created.
+ * Listeners that maintain derived state should use
+ * {@code @TransactionalEventListener} so they only see committed rows.
+ */
+public class AppointmentsCreatedEvent {
+
+    private final List<AppointmentDto> appointments;
+
+    public AppointmentsCreatedEvent(List<AppointmentDto> appointments) {
+        this.appointments = List.copyOf(appointments);
+    }
+
+    /** The created appointments, including their generated ids. */
+    public List<AppointmentDto> getAppointments() { return appointments; }
+}
@@ -0,0 +1,37 @@
+package nl.gerimedica.assignment;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published when all appointments of one or more patients have been deleted.
+ * Listeners that maintain derived state should use
+ * {@code @TransactionalEventListener} so they only react to committed deletes.
+ */
+public class AppointmentsDeletedEvent {
+
+    private final Set<Long> patientIds;
+    private final Set<String> ssns;
+    private final List<AppointmentGroupCount> removedGroups;
+
+    public AppointmentsDeletedEvent(Collection<Long> patientIds, Collection<String> ssns) {
+        this(patientIds, ssns, null);
+    }
+
+    public AppointmentsDeletedEvent(Collection<Long> patientIds, Collection<String> ssns,
+                                    List<AppointmentGroupCount> removedGroups) {
+        this.patientIds = Set.copyOf(patientIds);
+        this.ssns = Set.copyOf(ssns);
+        this.removedGroups = removedGroups != null ? List.copyOf(removedGroups) : null;
+    }
+
+    /** Ids of the patients whose appointments were removed. */
+    public Set<Long> getPatientIds() { return patientIds; }
+
+    /** SSNs of the same patients. */
+    public Set<String> getSsns() { return ssns; }
+
+    /** Removed appointments counted per (reason, date), or null if they were not counted. */
+    public List<AppointmentGroupCount> getRemovedGroups() { return removedGroups; }
+}
@@ -2,11 +2,14 @@ package nl.gerimedica.assignment;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
 /**
  * Main application entrypoint for the Gerimedica Assignment project.
+ * R2DBC is configured by {@link ReactivePersistenceConfig}; Boot's auto-configured connection factory
+ * would replace the JDBC data source JPA runs on.
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class AssignmentApplication {
 
     /**
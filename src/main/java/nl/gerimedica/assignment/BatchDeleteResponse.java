@@ -0,0 +1,35 @@
+package nl.gerimedica.assignment;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for the result of deleting appointments for many SSNs.
+ */
+public class BatchDeleteResponse {
+
+    private Map<String, Integer> deleted;
+    private List<String> notFound;
+    private long totalDeleted;
+
+    // Default constructor for JSON deserialization
+    public BatchDeleteResponse() {}
+
+    public BatchDeleteResponse(Map<String, Integer> deleted, List<String> notFound) {
+        this.deleted = deleted;
+        this.notFound = notFound;
+        this.totalDeleted = deleted.values().stream().mapToLong(Integer::longValue).sum();
+    }
+
+    // Getters and setters
+    /** Deleted appointment count per known SSN. */
+    public Map<String, Integer> getDeleted() { return deleted; }
+    public void setDeleted(Map<String, Integer> deleted) { this.deleted = deleted; }
+
+    /** Requested SSNs that do not belong to any patient. */
+    public List<String> getNotFound() { return notFound; }
+    public void setNotFound(List<String> notFound) { this.notFound = notFound; }
+
+    public long getTotalDeleted() { return totalDeleted; }
+    public void setTotalDeleted(long totalDeleted) { this.totalDeleted = totalDeleted; }
+}
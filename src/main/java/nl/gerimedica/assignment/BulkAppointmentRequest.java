@@ -1,11 +1,16 @@
 package nl.gerimedica.assignment;
 
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
 import java.util.List;
 
 /**
  * DTO for bulk appointment creation payload.
+ * Dates are parsed as ISO-8601 ({@code YYYY-MM-DD}) during deserialization;
+ * a malformed date rejects the request with 400 before it reaches the service.
  */
 public class BulkAppointmentRequest {
 
@@ -15,12 +20,12 @@ public class BulkAppointmentRequest {
 
     @NotEmpty(message = "Dates list must not be empty")
     @Size(min = 1, max = 100, message = "Dates list must contain between 1 and 100 items")
-    private List<String> dates;
+    private List<@NotNull(message = "Dates must not be null") LocalDate> dates;
 
     // Default constructor for JSON deserialization
     public BulkAppointmentRequest() {}
 
-    public BulkAppointmentRequest(List<String> reasons, List<String> dates) {
+    public BulkAppointmentRequest(List<String> reasons, List<LocalDate> dates) {
         this.reasons = reasons;
         this.dates = dates;
     }
@@ -32,10 +37,10 @@ public class BulkAppointmentRequest {
     public void setReasons(List<String> reasons) {
         this.reasons = reasons;
     }
-    public List<String> getDates() {
+    public List<LocalDate> getDates() {
         return dates;
     }
-    public void setDates(List<String> dates) {
+    public void setDates(List<LocalDate> dates) {
         this.dates = dates;
     }
 }
@@ -0,0 +1,60 @@
+package nl.gerimedica.assignment;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /actuator/pool}: saturation of the Hikari connection pool at a glance.
+ * <p>
+ * Combines the pool's live counters (active, idle, pending threads) with the
+ * {@code hikaricp.connections.timeout} and {@code hikaricp.connections.acquire} meters, so one
+ * call shows whether requests are waiting for connections and for how long. The same meters,
+ * with acquire-time histograms in the prod profile, are available to Prometheus.
+ * </p>
+ */
+@Component
+@Endpoint(id = "pool")
+public class ConnectionPoolEndpoint {
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    public ConnectionPoolEndpoint(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return the current pool status, or null if the data source is not a started Hikari pool
+     */
+    @ReadOperation
+    public ConnectionPoolStatus pool() throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            return null;
+        }
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return null;
+        }
+        String name = hikari.getPoolName();
+        Counter timeouts = meterRegistry.find("hikaricp.connections.timeout").tag("pool", name).counter();
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", name).timer();
+        return new ConnectionPoolStatus(name,
+            pool.getActiveConnections(), pool.getIdleConnections(), pool.getTotalConnections(),
+            hikari.getMaximumPoolSize(), pool.getThreadsAwaitingConnection(),
+            timeouts != null ? (long) timeouts.count() : 0,
+            acquire != null ? acquire.mean(TimeUnit.MILLISECONDS) : 0,
+            acquire != null ? acquire.max(TimeUnit.MILLISECONDS) : 0);
+    }
+}
@@ -0,0 +1,63 @@
+package nl.gerimedica.assignment;
+
+/**
+ * Snapshot of the JDBC connection pool, served by {@link ConnectionPoolEndpoint}.
+ */
+public class ConnectionPoolStatus {
+
+    private final String pool;
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int max;
+    private final int pending;
+    private final double saturation;
+    private final long timeouts;
+    private final double acquireMeanMillis;
+    private final double acquireMaxMillis;
+
+    public ConnectionPoolStatus(String pool, int active, int idle, int total, int max, int pending,
+                                long timeouts, double acquireMeanMillis, double acquireMaxMillis) {
+        this.pool = pool;
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.max = max;
+        this.pending = pending;
+        this.saturation = max > 0 ? (double) active / max : 0;
+        this.timeouts = timeouts;
+        this.acquireMeanMillis = acquireMeanMillis;
+        this.acquireMaxMillis = acquireMaxMillis;
+    }
+
+    // Getters
+    /** Pool name, as in the {@code pool} tag of the {@code hikaricp.*} meters. */
+    public String getPool() { return pool; }
+
+    /** Connections lent out right now. */
+    public int getActive() { return active; }
+
+    /** Open connections waiting in the pool. */
+    public int getIdle() { return idle; }
+
+    /** Open connections, active and idle. */
+    public int getTotal() { return total; }
+
+    /** Maximum pool size. */
+    public int getMax() { return max; }
+
+    /** Threads waiting for a connection; above zero the pool is the bottleneck. */
+    public int getPending() { return pending; }
+
+    /** Active connections as a fraction of the maximum pool size. */
+    public double getSaturation() { return saturation; }
+
+    /** Connection requests that gave up after the connection timeout, since startup. */
+    public long getTimeouts() { return timeouts; }
+
+    /** Mean time to get a connection, since startup. */
+    public double getAcquireMeanMillis() { return acquireMeanMillis; }
+
+    /** Longest recent time to get a connection. */
+    public double getAcquireMaxMillis() { return acquireMaxMillis; }
+}
@@ -0,0 +1,27 @@
+package nl.gerimedica.assignment;
+
+import java.time.LocalDate;
+
+/**
+ * Report row: number of appointments in one date bucket, identified by its first day.
+ */
+public class DateCount {
+
+    private LocalDate date;
+    private long count;
+
+    // Default constructor for JSON deserialization
+    public DateCount() {}
+
+    public DateCount(LocalDate date, long count) {
+        this.date = date;
+        this.count = count;
+    }
+
+    // Getters and setters
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
@@ -1,14 +1,28 @@
 package nl.gerimedica.assignment;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class for handling hospital-related business logic.
@@ -18,6 +32,8 @@ import java.util.stream.Collectors;
  * - Leverages repository query methods for performance
  * - Encapsulates entity access
  * - Adds logging and input validation
+ * - Publishes appointment create/delete events so derived state (e.g. the search index) stays in sync
+ * - Usage is counted by {@link UsageTrackingAspect} via {@link TrackUsage}, not by calls in each method
  */
 @Service
 @Slf4j
@@ -25,40 +41,68 @@ public class HospitalService {
 
     private final PatientRepository patientRepo;
     private final AppointmentRepository appointmentRepo;
+    private final ReasonSearchIndex reasonIndex;
+    private final PatientCache patientCache;
+    private final PatientResolver patientResolver;
+    private final AppointmentMapper appointmentMapper;
+    private final AppointmentRollup appointmentRollup;
+    private final AppointmentWriteBuffer writeBuffer;
+    private final ApplicationEventPublisher events;
 
-    public HospitalService(PatientRepository patientRepo, AppointmentRepository appointmentRepo) {
+    public HospitalService(PatientRepository patientRepo, AppointmentRepository appointmentRepo,
+                           ReasonSearchIndex reasonIndex,
+                           PatientCache patientCache, PatientResolver patientResolver,
+                           AppointmentMapper appointmentMapper, AppointmentRollup appointmentRollup,
+                           AppointmentWriteBuffer writeBuffer, ApplicationEventPublisher events) {
         this.patientRepo = patientRepo;
         this.appointmentRepo = appointmentRepo;
+        this.reasonIndex = reasonIndex;
+        this.patientCache = patientCache;
+        this.patientResolver = patientResolver;
+        this.appointmentMapper = appointmentMapper;
+        this.appointmentRollup = appointmentRollup;
+        this.writeBuffer = writeBuffer;
+        this.events = events;
     }
 
     /**
      * Bulk create appointments for a patient.
-     * Creates the patient if not found.
-     * Saves all appointments in a single batch.
+     * Creates the patient if not found, through {@link PatientResolver}, so parallel requests for
+     * the same new SSN share one patient instead of failing on the unique constraint.
+     * The patient is committed first, in its own short transaction; the appointments are then
+     * saved in a single batch transaction. With sequence-generated IDs and
+     * {@code hibernate.jdbc.batch_size} set, the inserts go out as JDBC batches on flush.
+     * Not wrapped in one outer transaction, so a request never holds two pooled connections.
+     * With write-behind enabled, the appointments are instead handed to the {@link AppointmentWriteBuffer}
+     * and committed together with other requests' rows; this call still returns only once they are committed.
      * 
      * @param patientName the patient's name
      * @param ssn the patient's SSN
      * @param reasons list of appointment reasons
      * @param dates list of appointment dates
      * @return list of created appointment DTOs
+     * @throws java.util.concurrent.RejectedExecutionException if write-behind is enabled and its queue is full,
+     *         or the write was cancelled because it did not start committing within the commit timeout
      */
-    @Transactional
+    @TrackUsage("Bulk create appointments")
     public List<AppointmentDto> bulkCreateAppointments(
             String patientName,
             String ssn,
             List<String> reasons,
-            List<String> dates
+            List<LocalDate> dates
     ) {
         // Validate input
         if (reasons == null || dates == null || reasons.isEmpty() || dates.isEmpty()) {
             throw new IllegalArgumentException("Reasons and dates must not be empty");
         }
 
-        Patient patient = patientRepo.findBySsn(ssn)
-                .orElseGet(() -> {
-                    log.info("Creating new patient with SSN: {}", ssn);
-                    return patientRepo.save(new Patient(patientName, ssn));
-                });
+        Long patientId = patientResolver.resolvePatientId(patientName, ssn);
+        if (writeBuffer.isEnabled()) {
+            List<AppointmentDto> buffered = await(writeBuffer.submit(patientId, reasons, dates));
+            log.info("Created {} appointments for patient SSN: {} (group commit)", buffered.size(), ssn);
+            return buffered;
+        }
+        Patient patient = patientRepo.getReferenceById(patientId);
 
         int count = Math.min(reasons.size(), dates.size());
         List<Appointment> appointments = new ArrayList<>(count);
@@ -69,23 +113,14 @@ public class HospitalService {
 
         List<Appointment> savedAppointments = appointmentRepo.saveAll(appointments);
 
-        savedAppointments.forEach(appt ->
-            log.info("Created appointment for reason: {} [Date: {}] [Patient SSN: {}]", 
-                appt.getReason(), appt.getDate(), appt.getPatient().getSsn())
-        );
-
-        // Convert to DTOs
-        List<AppointmentDto> appointmentDtos = savedAppointments.stream()
-            .map(appt -> new AppointmentDto(
-                appt.getId(),
-                appt.getReason(),
-                appt.getDate(),
-                appt.getPatient().getId()
-            ))
-            .collect(Collectors.toList());
+        log.info("Created {} appointments for patient SSN: {}", savedAppointments.size(), ssn);
+        if (log.isDebugEnabled()) {
+            savedAppointments.forEach(appt ->
+                log.debug("Created appointment for reason: {} [Date: {}]", appt.getReason(), appt.getDate()));
+        }
 
-        // NOTE: Ideally, usage recording should be an aspect/event, not called directly.
-        HospitalUtils.recordUsage("Bulk create appointments");
+        List<AppointmentDto> appointmentDtos = appointmentMapper.toDtoList(savedAppointments);
+        events.publishEvent(new AppointmentsCreatedEvent(appointmentDtos));
 
         return appointmentDtos;
     }
@@ -95,91 +130,249 @@ public class HospitalService {
      * @param ssn patient's SSN
      * @return Optional containing the patient if found
      */
+    @Transactional(readOnly = true)
     public Optional<Patient> findPatientBySSN(String ssn) {
         return patientRepo.findBySsn(ssn);
     }
 
     /**
-     * Get all appointments whose reason matches the keyword (case-insensitive, contains).
+     * Get one keyset page of appointments whose reason matches the keyword (case-insensitive, contains).
+     * Pages are ordered by id; pass the last id of a page as {@code afterId} to get the next one.
+     * Matching ids come from the {@link ReasonSearchIndex} once it is loaded; until then the
+     * database filters with LIKE. Either way rows are selected straight into DTOs.
      * 
      * @param reasonKeyword the keyword to search for in appointment reasons
-     * @return list of matching appointment DTOs
+     * @param afterId id of the last appointment already returned, or null for the first page
+     * @param limit maximum number of appointments to return
+     * @return list of matching appointment DTOs, at most {@code limit} long
      */
-    public List<AppointmentDto> getAppointmentsByReason(String reasonKeyword) {
-        // Use custom repository method for filtering in DB, not in memory!
-        List<Appointment> matched = appointmentRepo.findByReasonContainingIgnoreCase(reasonKeyword);
-        log.info("Found {} appointments matching reason: '{}'", matched.size(), reasonKeyword);
-
-        // Convert to DTOs
-        List<AppointmentDto> appointmentDtos = matched.stream()
-            .map(appt -> new AppointmentDto(
-                appt.getId(),
-                appt.getReason(),
-                appt.getDate(),
-                appt.getPatient().getId()
-            ))
-            .collect(Collectors.toList());
-
-        // Example usage tracking; in real life, use event/aspect instead
-        HospitalUtils.recordUsage("Get appointments by reason");
-        return appointmentDtos;
+    @TrackUsage("Get appointments by reason")
+    @Transactional(readOnly = true)
+    public List<AppointmentDto> getAppointmentsByReason(String reasonKeyword, Long afterId, int limit) {
+        long after = afterId == null ? 0L : afterId;
+        List<AppointmentDto> matched;
+        if (reasonIndex.isReady()) {
+            matched = searchIndexedPage(reasonKeyword, after, limit);
+        } else {
+            matched = appointmentRepo.findPageByReason(reasonKeyword, after, Limit.of(limit));
+        }
+        log.info("Found {} appointments matching reason: '{}' after id {}", matched.size(), reasonKeyword, afterId);
+        return matched;
+    }
+
+    /**
+     * Index lookup, then primary-key fetch of just this page.
+     * Ids of rows deleted since the index last caught up (a delete whose after-commit event has
+     * not been applied yet) come back without a row, so the page is topped up from the index,
+     * continuing after the last id it returned, until it is full or the index has no more matches.
+     */
+    private List<AppointmentDto> searchIndexedPage(String reasonKeyword, long afterId, int limit) {
+        List<AppointmentDto> page = new ArrayList<>();
+        long after = afterId;
+        while (page.size() < limit) {
+            int wanted = limit - page.size();
+            List<Long> ids = reasonIndex.search(reasonKeyword, after, wanted);
+            if (ids.isEmpty()) break;
+            page.addAll(appointmentRepo.findDtosByIdIn(ids));
+            if (ids.size() < wanted) break;
+            after = ids.get(ids.size() - 1);
+        }
+        return page;
+    }
+
+    /**
+     * Get one keyset page of appointments dated between {@code from} and {@code to} (inclusive),
+     * ordered by date, then id. Pass the date and id of the last appointment of a page as
+     * {@code afterDate} and {@code afterId} to get the next one.
+     * Each page is one range scan of the (date, id) index, so a week is a single query
+     * rather than one {@link AppointmentRepository#findByDate} per day.
+     *
+     * @param from first date of the window
+     * @param to last date of the window
+     * @param afterDate date of the last appointment already returned, or null for the first page
+     * @param afterId id of the last appointment already returned, or null for the first page
+     * @param limit maximum number of appointments to return
+     * @return list of appointment DTOs in the window, at most {@code limit} long
+     */
+    @TrackUsage("Get appointments by date range")
+    @Transactional(readOnly = true)
+    public List<AppointmentDto> getAppointmentsByDateRange(LocalDate from, LocalDate to,
+                                                           LocalDate afterDate, Long afterId, int limit) {
+        LocalDate lower = from;
+        long after = 0L;
+        if (afterDate != null && afterId != null && !afterDate.isBefore(from)) {
+            lower = afterDate;
+            after = afterId;
+        }
+        List<AppointmentDto> found = appointmentRepo.findByDateRange(lower, to, after, Limit.of(limit));
+        log.info("Found {} appointments between {} and {} after {}/{}", found.size(), from, to, afterDate, afterId);
+        return found;
+    }
+
+    /**
+     * Stream every appointment whose reason matches the keyword (case-insensitive, contains)
+     * to the given consumer, in id order.
+     * Rows are read as DTOs, so the persistence context does not grow with the result size.
+     *
+     * @param reasonKeyword the keyword to search for in appointment reasons
+     * @param sink receives each matching appointment DTO as it is read
+     * @return number of appointments streamed
+     */
+    @TrackUsage("Stream appointments by reason")
+    @Transactional(readOnly = true)
+    public long streamAppointmentsByReason(String reasonKeyword, Consumer<AppointmentDto> sink) {
+        long count = 0;
+        try (Stream<AppointmentDto> matched = appointmentRepo.streamByReason(reasonKeyword)) {
+            Iterator<AppointmentDto> it = matched.iterator();
+            while (it.hasNext()) {
+                sink.accept(it.next());
+                count++;
+            }
+        }
+        log.info("Streamed {} appointments matching reason: '{}'", count, reasonKeyword);
+        return count;
     }
 
     /**
      * Delete all appointments for a given patient's SSN.
+     * Uses one set-based DELETE instead of loading and removing each appointment.
+     * While the {@link AppointmentRollup} is enabled, the deleted appointments are first counted
+     * per (reason, date) with one GROUP BY, so the rollup can subtract them.
      * 
      * @param ssn the patient's SSN
-     * @return true if appointments were deleted, false if patient not found
+     * @return number of deleted appointments, or empty if the patient was not found
      */
+    @TrackUsage("Delete appointments")
     @Transactional
-    public boolean deleteAppointmentsBySSN(String ssn) {
-        Optional<Patient> patientOpt = findPatientBySSN(ssn);
-        if (patientOpt.isPresent()) {
-            List<Appointment> appointments = appointmentRepo.findByPatientSsn(ssn);
-            appointmentRepo.deleteAll(appointments);
-            log.info("Deleted {} appointments for patient SSN: {}", 
-            appointments.size(), ssn);
-        return true;
-    } else {
+    public Optional<Integer> deleteAppointmentsBySSN(String ssn) {
+        Optional<Long> patientIdOpt = patientCache.findPatientId(ssn);
+        if (patientIdOpt.isEmpty()) {
             log.warn("No patient found with SSN: {}", ssn);
-            return false;
+            return Optional.empty();
+        }
+        Long patientId = patientIdOpt.get();
+        List<AppointmentGroupCount> removed = countForRollup(List.of(patientId));
+        int deleted = appointmentRepo.deleteByPatientId(patientId);
+        events.publishEvent(new AppointmentsDeletedEvent(List.of(patientId), List.of(ssn),
+            AppointmentGroupCount.matching(removed, deleted)));
+        log.info("Deleted {} appointments for patient SSN: {}", deleted, ssn);
+        return Optional.of(deleted);
+    }
+
+    /**
+     * Delete all appointments for many patients in one transaction.
+     * Patients are resolved with a single query; each known patient costs one set-based DELETE.
+     *
+     * @param ssns the patients' SSNs
+     * @return number of deleted appointments per known SSN; unknown SSNs are absent
+     */
+    @TrackUsage("Delete appointments in batch")
+    @Transactional
+    public Map<String, Integer> deleteAppointmentsBySSNs(Collection<String> ssns) {
+        List<Patient> patients = patientRepo.findBySsnIn(ssns);
+        Map<String, Integer> deleted = new LinkedHashMap<>();
+        List<Long> patientIds = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            patientIds.add(patient.getId());
+        }
+        List<AppointmentGroupCount> removed = patientIds.isEmpty() ? null : countForRollup(patientIds);
+        for (Patient patient : patients) {
+            deleted.put(patient.getSsn(), appointmentRepo.deleteByPatientId(patient.getId()));
         }
+        int total = deleted.values().stream().mapToInt(Integer::intValue).sum();
+        if (!patientIds.isEmpty()) {
+            events.publishEvent(new AppointmentsDeletedEvent(patientIds, deleted.keySet(),
+                AppointmentGroupCount.matching(removed, total)));
+        }
+        log.info("Deleted {} appointments for {} of {} requested SSNs", total, deleted.size(), ssns.size());
+        return deleted;
     }
 
     /**
      * Find the latest appointment by SSN, using the appointment date.
+     * The SSN is resolved through the {@link PatientCache}, then a top-1 query on the
+     * (patient_id, date) index fetches the row rather than the full history.
+     * Unknown SSNs are usually answered from the negative cache without touching the database.
      * 
      * @param ssn the patient's SSN
      * @return Optional containing the latest appointment DTO if found
      */
+    @TrackUsage("Find latest appointment")
+    @Transactional(readOnly = true)
     public Optional<AppointmentDto> findLatestAppointmentBySSN(String ssn) {
-        Optional<Patient> patientOpt = patientRepo.findBySsnWithAppointments(ssn);
-        if (patientOpt.isEmpty()) {
+        Optional<Long> patientId = patientCache.findPatientId(ssn);
+        if (patientId.isEmpty()) {
             log.warn("No patient found with SSN: {}", ssn);
             return Optional.empty();
         }
-        
-        Patient patient = patientOpt.get();
-        if (patient.getAppointments().isEmpty()) {
+
+        Optional<AppointmentDto> latestAppointment = appointmentRepo.findLatestByPatientId(patientId.get());
+        if (latestAppointment.isEmpty()) {
             log.warn("No appointments found for patient SSN: {}", ssn);
-            return Optional.empty();
         }
-        
-        Appointment latestAppointment = patient.getAppointments().stream()
-                .max(Comparator.comparing(Appointment::getDate))
-                .orElse(null);
-                
-        if (latestAppointment == null) {
-            return Optional.empty();
+        return latestAppointment;
+    }
+
+    /**
+     * Find the latest appointment of many patients with a single query, instead of one
+     * lookup per SSN (see {@link AppointmentRepository#findLatestBySsnIn}).
+     *
+     * @param ssns the patients' SSNs
+     * @return latest appointment per SSN, in request order; unknown SSNs and patients without
+     *         appointments are absent
+     */
+    @TrackUsage("Find latest appointments in batch")
+    @Transactional(readOnly = true)
+    public Map<String, AppointmentDto> findLatestAppointmentsBySSNs(Collection<String> ssns) {
+        Map<String, AppointmentDto> bySsn = new HashMap<>();
+        for (PatientLatestAppointment row : appointmentRepo.findLatestBySsnIn(ssns)) {
+            bySsn.put(row.getSsn(), row.getAppointment());
+        }
+        Map<String, AppointmentDto> latest = new LinkedHashMap<>();
+        for (String ssn : ssns) {
+            AppointmentDto appointment = bySsn.get(ssn);
+            if (appointment != null) {
+                latest.put(ssn, appointment);
+            }
+        }
+        log.info("Found latest appointments for {} of {} requested SSNs", latest.size(), ssns.size());
+        return latest;
+    }
+
+    /**
+     * Wait for a buffered write, at most {@link AppointmentWriteBuffer#getCommitTimeout}, rethrowing its
+     * failure as is. A write still queued at the timeout is cancelled and reported as a
+     * {@link RejectedExecutionException}, so a retry cannot duplicate it; one the flusher is already
+     * committing is waited for, so the caller always learns whether its rows were created.
+     */
+    private List<AppointmentDto> await(CompletableFuture<List<AppointmentDto>> write) {
+        Duration timeout = writeBuffer.getCommitTimeout();
+        try {
+            try {
+                return write.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (writeBuffer.cancel(write)) {
+                    throw new RejectedExecutionException("Write-behind commit did not start within " + timeout
+                        + "; nothing was written", e);
+                }
+                return write.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Write-behind commit failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a write-behind commit", e);
         }
-        
-        AppointmentDto appointmentDto = new AppointmentDto(
-            latestAppointment.getId(),
-            latestAppointment.getReason(),
-            latestAppointment.getDate(),
-            latestAppointment.getPatient().getId()
-        );
-        
-        return Optional.of(appointmentDto);
     }
-}
+
+    /**
+     * Count the patients' appointments per (reason, date) before they are deleted,
+     * or return null if the {@link AppointmentRollup} does not need them.
+     */
+    private List<AppointmentGroupCount> countForRollup(Collection<Long> patientIds) {
+        return appointmentRollup.isEnabled() ? appointmentRepo.countGroupsByPatientIdIn(patientIds) : null;
+    }
+}
\ No newline at end of file
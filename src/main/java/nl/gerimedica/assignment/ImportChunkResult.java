@@ -0,0 +1,55 @@
+package nl.gerimedica.assignment;
+
+/**
+ * Outcome of one committed (or rolled back) chunk of a streaming import.
+ */
+public class ImportChunkResult {
+
+    /** Whether the chunk's transaction was committed. */
+    public enum Status { COMMITTED, FAILED }
+
+    private int chunk;
+    private long firstLine;
+    private long lastLine;
+    private int imported;
+    private int rejected;
+    private Status status;
+    private String error;
+
+    // Default constructor for JSON deserialization
+    public ImportChunkResult() {}
+
+    public ImportChunkResult(int chunk, long firstLine, long lastLine, int imported, int rejected,
+                             Status status, String error) {
+        this.chunk = chunk;
+        this.firstLine = firstLine;
+        this.lastLine = lastLine;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.status = status;
+        this.error = error;
+    }
+
+    // Getters and setters
+    public int getChunk() { return chunk; }
+    public void setChunk(int chunk) { this.chunk = chunk; }
+
+    public long getFirstLine() { return firstLine; }
+    public void setFirstLine(long firstLine) { this.firstLine = firstLine; }
+
+    public long getLastLine() { return lastLine; }
+    public void setLastLine(long lastLine) { this.lastLine = lastLine; }
+
+    public int getImported() { return imported; }
+    public void setImported(int imported) { this.imported = imported; }
+
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    /** First error seen in the chunk (a rejected line or the rollback cause), or null. */
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,35 @@
+package nl.gerimedica.assignment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a streaming appointment import: totals plus one entry per chunk.
+ * Grows with the number of chunks, not rows, so it stays small for large uploads.
+ */
+public class ImportSummary {
+
+    private long totalRows;
+    private long importedRows;
+    private long rejectedRows;
+    private final List<ImportChunkResult> chunks = new ArrayList<>();
+
+    /**
+     * Adds a chunk outcome and updates the totals.
+     *
+     * @param result the chunk outcome
+     * @param rows number of lines the chunk contained
+     */
+    public void addChunk(ImportChunkResult result, int rows) {
+        chunks.add(result);
+        totalRows += rows;
+        importedRows += result.getImported();
+        rejectedRows += rows - result.getImported();
+    }
+
+    // Getters
+    public long getTotalRows() { return totalRows; }
+    public long getImportedRows() { return importedRows; }
+    public long getRejectedRows() { return rejectedRows; }
+    public List<ImportChunkResult> getChunks() { return chunks; }
+}
@@ -0,0 +1,115 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for hot-path latency, complementing Spring's {@code http.server.requests}:
+ * - {@code hospital.db.query} timer and {@code hospital.db.rows} summary, tagged {@code query}
+ *   ({@code Repository.method})
+ * - {@code hospital.request.phase} timer, tagged {@code uri} and {@code phase} (db, mapping,
+ *   serialization): per request, the time spent in each phase
+ * - {@code hospital.request.rows} summary, tagged {@code uri}: rows read per request
+ * <p>
+ * Meters are looked up once per tag combination and then reused, so recording costs a map lookup
+ * and a lock-free update. Histograms and percentiles are switched on with the
+ * {@code management.metrics.distribution.*} properties.
+ * </p>
+ */
+@Component
+public class LatencyMetrics {
+
+    /** Meters of one query. */
+    private static final class QueryMeters {
+        private final Timer time;
+        private final DistributionSummary rows;
+
+        private QueryMeters(Timer time, DistributionSummary rows) {
+            this.time = time;
+            this.rows = rows;
+        }
+    }
+
+    /** Meters of one endpoint. */
+    private static final class EndpointMeters {
+        private final Map<RequestPhases.Phase, Timer> phases;
+        private final DistributionSummary rows;
+
+        private EndpointMeters(Map<RequestPhases.Phase, Timer> phases, DistributionSummary rows) {
+            this.phases = phases;
+            this.rows = rows;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, QueryMeters> queries = new ConcurrentHashMap<>();
+    private final Map<String, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+
+    public LatencyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Record one repository call.
+     *
+     * @param query {@code Repository.method}
+     * @param elapsedNanos time spent in the call
+     * @param rows rows returned, or a negative number if not known (e.g. a stream still to be read)
+     */
+    public void recordQuery(String query, long elapsedNanos, long rows) {
+        QueryMeters meters = queries.computeIfAbsent(query, this::queryMeters);
+        meters.time.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            meters.rows.record(rows);
+        }
+    }
+
+    /**
+     * Record the phase breakdown of one finished request.
+     *
+     * @param uri the matched request mapping pattern
+     * @param phases what the request spent per phase
+     */
+    public void recordRequest(String uri, RequestPhases phases) {
+        EndpointMeters meters = endpoints.computeIfAbsent(uri, this::endpointMeters);
+        meters.phases.forEach((phase, timer) -> timer.record(phases.nanos(phase), TimeUnit.NANOSECONDS));
+        meters.rows.record(phases.rows());
+    }
+
+    private QueryMeters queryMeters(String query) {
+        return new QueryMeters(
+            Timer.builder("hospital.db.query")
+                .description("Time spent in a repository call")
+                .tag("query", query)
+                .register(registry),
+            DistributionSummary.builder("hospital.db.rows")
+                .description("Rows returned by a repository call")
+                .baseUnit("rows")
+                .tag("query", query)
+                .register(registry));
+    }
+
+    private EndpointMeters endpointMeters(String uri) {
+        Map<RequestPhases.Phase, Timer> phases = new EnumMap<>(RequestPhases.Phase.class);
+        for (RequestPhases.Phase phase : RequestPhases.Phase.values()) {
+            phases.put(phase, Timer.builder("hospital.request.phase")
+                .description("Time a request spent in one phase")
+                .tag("uri", uri)
+                .tag("phase", phase.tag())
+                .register(registry));
+        }
+        return new EndpointMeters(phases,
+            DistributionSummary.builder("hospital.request.rows")
+                .description("Rows read while handling a request")
+                .baseUnit("rows")
+                .tag("uri", uri)
+                .register(registry));
+    }
+}
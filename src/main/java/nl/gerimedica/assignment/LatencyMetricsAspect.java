@@ -0,0 +1,90 @@
+package nl.gerimedica.assignment;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Times repository calls and appointment mapping.
+ * <p>
+ * - Every repository method is recorded as {@code hospital.db.query} with the rows it returned,
+ *   and its time is added to the current request's database phase
+ * - {@link AppointmentMapper} conversions are added to the current request's mapping phase
+ * </p>
+ * Default repository methods only delegate to a query method, which is timed itself, so they are
+ * passed through to avoid counting the same query twice. Streams are timed until the cursor is
+ * open; the consumer accounts for the request's time reading them and for the rows.
+ */
+@Aspect
+@Component
+public class LatencyMetricsAspect {
+
+    private final LatencyMetrics latencyMetrics;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public LatencyMetricsAspect(LatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    @Around("execution(* nl.gerimedica.assignment.*Repository+.*(..))")
+    public Object timeQuery(ProceedingJoinPoint call) throws Throwable {
+        if (((MethodSignature) call.getSignature()).getMethod().isDefault()) {
+            return call.proceed();
+        }
+        long start = System.nanoTime();
+        Object result = call.proceed();
+        long elapsed = System.nanoTime() - start;
+        long rows = rows(result);
+        latencyMetrics.recordQuery(repositoryName(call.getTarget().getClass()) + "." + call.getSignature().getName(),
+            elapsed, rows);
+        if (!(result instanceof Stream<?>)) {
+            RequestPhases.add(RequestPhases.Phase.DB, elapsed);
+            if (rows > 0) {
+                RequestPhases.addRows(rows);
+            }
+        }
+        return result;
+    }
+
+    @Around("execution(* nl.gerimedica.assignment.AppointmentMapper.toDto*(..))")
+    public Object timeMapping(ProceedingJoinPoint call) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return call.proceed();
+        } finally {
+            RequestPhases.add(RequestPhases.Phase.MAPPING, System.nanoTime() - start);
+        }
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+
+    /** Simple name of the application repository interface a repository proxy implements. */
+    private String repositoryName(Class<?> proxyClass) {
+        return repositoryNames.computeIfAbsent(proxyClass, type -> {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(candidate)
+                        && candidate.getPackageName().equals(LatencyMetricsAspect.class.getPackageName())) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package nl.gerimedica.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Wires the request phase breakdown (see {@link LatencyMetrics}) into Spring MVC:
+ * - {@link RequestPhasesInterceptor} runs for every API request
+ * - the JSON message converter adds the time spent writing response bodies to the
+ *   serialization phase; it replaces Spring Boot's default converter with the same ObjectMapper
+ */
+@Configuration
+public class LatencyMetricsConfig implements WebMvcConfigurer {
+
+    private final RequestPhasesInterceptor requestPhasesInterceptor;
+
+    public LatencyMetricsConfig(RequestPhasesInterceptor requestPhasesInterceptor) {
+        this.requestPhasesInterceptor = requestPhasesInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestPhasesInterceptor).addPathPatterns("/api/**");
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException {
+                long start = System.nanoTime();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    RequestPhases.add(RequestPhases.Phase.SERIALIZATION, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+}
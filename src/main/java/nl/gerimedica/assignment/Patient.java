@@ -2,6 +2,8 @@ package nl.gerimedica.assignment;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -14,13 +16,20 @@ import java.util.Objects;
  * - Field-level validation and database constraints
  * - Appointments collection is managed and unmodifiable externally
  * - Equals/hashCode uses the primary key (id)
+ * - IDs come from a pooled sequence so inserts can be JDBC-batched
+ * - The entity and its appointments collection live in the second-level cache (regions sized in application.conf)
  * </p>
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Named so query plans show which index an SSN lookup uses
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_patient_ssn", columnNames = "ssn"))
 public class Patient {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_seq")
+    @SequenceGenerator(name = "patient_seq", sequenceName = "patient_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Patient name must not be blank")
@@ -28,9 +37,10 @@ public class Patient {
     private String name;
 
     @NotBlank(message = "SSN must not be blank")
-    @Column(nullable = false, unique = true, length = 11)
+    @Column(nullable = false, length = 11)
     private String ssn;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "patient", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Appointment> appointments;
 
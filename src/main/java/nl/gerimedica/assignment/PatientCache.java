@@ -0,0 +1,121 @@
+package nl.gerimedica.assignment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache for SSN to patient id resolution, in front of {@link PatientRepository}.
+ * <p>
+ * - Known SSNs are kept in a size-bounded cache with a TTL ({@code hospital.patient-cache.*})
+ * - Unknown SSNs are kept in a separate, shorter-lived negative cache, so repeated lookups of a
+ *   mistyped SSN do not each hit the database
+ * - Entries are refreshed after a patient is created and evicted after a patient's appointments
+ *   are deleted, both only once the transaction has committed
+ * - Every refresh or eviction bumps a generation for the SSN's stripe; a database result is only
+ *   cached if no generation bump happened while it was being loaded, so a miss read just before
+ *   another request commits the patient cannot overwrite the fresher entry
+ * - Hit/miss/eviction metrics are published as {@code cache.*} meters named
+ *   {@code patient.ssn} and {@code patient.ssn.unknown}
+ * </p>
+ */
+@Component
+@Slf4j
+public class PatientCache {
+
+    private static final int GENERATION_STRIPES = 64;
+
+    private final PatientRepository patientRepo;
+    private final Cache<String, Long> patientIds;
+    private final Cache<String, Boolean> unknownSsns;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public PatientCache(PatientRepository patientRepo,
+                        MeterRegistry meterRegistry,
+                        @Value("${hospital.patient-cache.max-size:10000}") long maxSize,
+                        @Value("${hospital.patient-cache.ttl:10m}") Duration ttl,
+                        @Value("${hospital.patient-cache.negative-max-size:10000}") long negativeMaxSize,
+                        @Value("${hospital.patient-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.patientRepo = patientRepo;
+        this.patientIds = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        this.unknownSsns = Caffeine.newBuilder()
+            .maximumSize(negativeMaxSize)
+            .expireAfterWrite(negativeTtl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, patientIds, "patient.ssn");
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownSsns, "patient.ssn.unknown");
+    }
+
+    /**
+     * Resolve a patient id by SSN, from cache when possible.
+     *
+     * @param ssn the patient's SSN
+     * @return the patient id, or empty if no patient has this SSN
+     */
+    public Optional<Long> findPatientId(String ssn) {
+        Long cached = patientIds.getIfPresent(ssn);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (unknownSsns.getIfPresent(ssn) != null) {
+            return Optional.empty();
+        }
+        int stripe = stripe(ssn);
+        long generation = generations.get(stripe);
+        Optional<Long> loaded = patientRepo.findIdBySsn(ssn);
+        if (generations.get(stripe) != generation) {
+            return loaded;
+        }
+        Cache<String, ?> target = loaded.isPresent() ? patientIds : unknownSsns;
+        if (loaded.isPresent()) {
+            patientIds.put(ssn, loaded.get());
+        } else {
+            unknownSsns.put(ssn, Boolean.TRUE);
+        }
+        // A refresh or eviction that ran between the check above and the put has already
+        // invalidated the key, so undo the stale put ourselves
+        if (generations.get(stripe) != generation) {
+            target.invalidate(ssn);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop any cached state for an SSN; the next lookup goes to the database.
+     */
+    public void evict(String ssn) {
+        generations.incrementAndGet(stripe(ssn));
+        patientIds.invalidate(ssn);
+        unknownSsns.invalidate(ssn);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientCreated(PatientCreatedEvent event) {
+        generations.incrementAndGet(stripe(event.getSsn()));
+        unknownSsns.invalidate(event.getSsn());
+        patientIds.put(event.getSsn(), event.getPatientId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentsDeleted(AppointmentsDeletedEvent event) {
+        event.getSsns().forEach(this::evict);
+    }
+
+    private static int stripe(String ssn) {
+        return (ssn.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+    }
+}
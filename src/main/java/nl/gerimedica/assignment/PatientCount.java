@@ -0,0 +1,25 @@
+package nl.gerimedica.assignment;
+
+/**
+ * Report row: number of appointments of one patient.
+ */
+public class PatientCount {
+
+    private Long patientId;
+    private long count;
+
+    // Default constructor for JSON deserialization
+    public PatientCount() {}
+
+    public PatientCount(Long patientId, long count) {
+        this.patientId = patientId;
+        this.count = count;
+    }
+
+    // Getters and setters
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
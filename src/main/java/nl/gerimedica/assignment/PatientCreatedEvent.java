@@ -0,0 +1,20 @@
+package nl.gerimedica.assignment;
+
+/**
+ * Published when a patient has been created.
+ * Listeners that cache patient lookups should use
+ * {@code @TransactionalEventListener} so they only see committed patients.
+ */
+public class PatientCreatedEvent {
+
+    private final Long patientId;
+    private final String ssn;
+
+    public PatientCreatedEvent(Long patientId, String ssn) {
+        this.patientId = patientId;
+        this.ssn = ssn;
+    }
+
+    public Long getPatientId() { return patientId; }
+    public String getSsn() { return ssn; }
+}
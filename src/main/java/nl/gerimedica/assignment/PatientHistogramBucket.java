@@ -0,0 +1,26 @@
+package nl.gerimedica.assignment;
+
+/**
+ * Report row of the appointments-per-patient histogram:
+ * how many patients have exactly {@code appointments} appointments.
+ */
+public class PatientHistogramBucket {
+
+    private long appointments;
+    private long patients;
+
+    // Default constructor for JSON deserialization
+    public PatientHistogramBucket() {}
+
+    public PatientHistogramBucket(long appointments, long patients) {
+        this.appointments = appointments;
+        this.patients = patients;
+    }
+
+    // Getters and setters
+    public long getAppointments() { return appointments; }
+    public void setAppointments(long appointments) { this.appointments = appointments; }
+
+    public long getPatients() { return patients; }
+    public void setPatients(long patients) { this.patients = patients; }
+}
@@ -0,0 +1,22 @@
+package nl.gerimedica.assignment;
+
+import java.time.LocalDate;
+
+/**
+ * The latest appointment of one patient, together with the patient's SSN,
+ * as selected by {@link AppointmentRepository#findLatestBySsnIn}.
+ */
+public class PatientLatestAppointment {
+
+    private final String ssn;
+    private final AppointmentDto appointment;
+
+    public PatientLatestAppointment(String ssn, Long id, String reason, LocalDate date, Long patientId) {
+        this.ssn = ssn;
+        this.appointment = new AppointmentDto(id, reason, date, patientId);
+    }
+
+    // Getters
+    public String getSsn() { return ssn; }
+    public AppointmentDto getAppointment() { return appointment; }
+}
@@ -1,10 +1,14 @@
 package nl.gerimedica.assignment;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,11 +24,28 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
 
     /**
      * Find a patient by SSN.
+     * The result is kept in the query cache until the patient table changes.
      * @param ssn Social Security Number
      * @return an Optional of Patient, empty if not found
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Patient> findBySsn(String ssn);
 
+    /**
+     * Resolve only the id of the patient with the given SSN, without loading the entity.
+     * @param ssn Social Security Number
+     * @return the patient id, empty if not found
+     */
+    @Query("SELECT p.id FROM Patient p WHERE p.ssn = :ssn")
+    Optional<Long> findIdBySsn(@Param("ssn") String ssn);
+
+    /**
+     * Find all patients whose SSN is in the given set, in one query.
+     * @param ssns Social Security Numbers to resolve
+     * @return patients found; unknown SSNs are simply absent
+     */
+    List<Patient> findBySsnIn(Collection<String> ssns);
+
     /**
      * Find patients by name (case-insensitive).
      * @param name patient name
@@ -48,9 +69,11 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
 
     /**
      * Find a patient by SSN with appointments eagerly loaded.
+     * The result is kept in the query cache until the patient or appointment table changes.
      * @param ssn Social Security Number
      * @return an Optional of Patient with appointments, empty if not found
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT p FROM Patient p LEFT JOIN FETCH p.appointments WHERE p.ssn = :ssn")
     Optional<Patient> findBySsnWithAppointments(@Param("ssn") String ssn);
 
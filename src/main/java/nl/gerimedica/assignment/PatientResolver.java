@@ -0,0 +1,107 @@
+package nl.gerimedica.assignment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Get-or-create of patients by SSN that is safe under concurrent requests for the same new SSN.
+ * <p>
+ * - Known SSNs are answered by the {@link PatientCache} without taking any lock
+ * - Creation is serialized per SSN by a fixed array of lock stripes, so concurrent requests for
+ *   the same new SSN wait for the first one instead of each inserting and one failing on the
+ *   unique constraint; requests for unrelated SSNs rarely share a stripe
+ * - The patient is inserted and committed in its own short transaction, so waiters see the row
+ *   as soon as they get the lock and the cache is updated before the lock is released
+ * - A unique-constraint violation (another application instance won the race) is answered by
+ *   reading the winner's row rather than failing the request
+ * </p>
+ * Stripes are {@link ReentrantLock}s rather than monitors so waiting virtual threads do not pin
+ * their carrier.
+ */
+@Component
+@Slf4j
+public class PatientResolver {
+
+    private final PatientRepository patientRepo;
+    private final PatientCache patientCache;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate createTx;
+    private final Lock[] stripes;
+
+    public PatientResolver(PatientRepository patientRepo,
+                           PatientCache patientCache,
+                           ApplicationEventPublisher events,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${hospital.patients.lock-stripes:64}") int stripeCount) {
+        this.patientRepo = patientRepo;
+        this.patientCache = patientCache;
+        this.events = events;
+        this.createTx = new TransactionTemplate(transactionManager);
+        this.createTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Resolve the id of the patient with the given SSN, creating the patient if there is none.
+     * A created patient is committed before this returns, independently of the caller's transaction.
+     *
+     * @param patientName name to use if the patient has to be created
+     * @param ssn the patient's SSN
+     * @return id of the existing or newly created patient
+     */
+    public Long resolvePatientId(String patientName, String ssn) {
+        Optional<Long> known = patientCache.findPatientId(ssn);
+        if (known.isPresent()) {
+            return known.get();
+        }
+
+        Lock lock = stripeFor(ssn);
+        lock.lock();
+        try {
+            // Re-check the database, not the cache: the negative cache may predate a patient
+            // created by the request we waited for or by another instance
+            Optional<Long> existing = patientRepo.findIdBySsn(ssn);
+            if (existing.isPresent()) {
+                patientCache.evict(ssn);
+                return existing.get();
+            }
+            return create(patientName, ssn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Long create(String patientName, String ssn) {
+        try {
+            return createTx.execute(status -> {
+                log.info("Creating new patient with SSN: {}", ssn);
+                Patient created = patientRepo.saveAndFlush(new Patient(patientName, ssn));
+                events.publishEvent(new PatientCreatedEvent(created.getId(), ssn));
+                return created.getId();
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.info("Patient with SSN {} was created concurrently elsewhere; using the existing record", ssn);
+            patientCache.evict(ssn);
+            return patientRepo.findIdBySsn(ssn).orElseThrow(() -> e);
+        }
+    }
+
+    private Lock stripeFor(String ssn) {
+        int hash = ssn.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
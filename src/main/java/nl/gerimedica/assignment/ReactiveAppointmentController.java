@@ -0,0 +1,143 @@
+package nl.gerimedica.assignment;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking variant of the core {@link AppointmentController} operations, backed by R2DBC.
+ *
+ * Improvements:
+ * - Handlers return {@link Mono}/{@link Flux}: the request thread is released as soon as the
+ *   pipeline is assembled, and the response is completed when the database answers
+ * - Searches are streamed as NDJSON, one appointment per line, requested from the database as the
+ *   client consumes them (backpressure) rather than collected into a list first
+ * - Same parameters and validation as the servlet endpoints, including {@link BulkAppointmentRequest}
+ *
+ * The endpoints are served by the same Spring MVC stack as the rest of the API, which subscribes to
+ * the returned publishers; a Boot application runs a single web stack, so this is not WebFlux.
+ * The embedded H2 driver executes statements on the subscribing thread, so the service subscribes on
+ * Reactor's bounded elastic pool: the servlet thread is released, but a pool thread is held while the
+ * database works. A network R2DBC driver ({@code spring.r2dbc.url}) holds no thread while waiting.
+ */
+@RestController
+@RequestMapping("/api/v1/reactive/appointments")
+public class ReactiveAppointmentController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveAppointmentService reactiveService;
+
+    public ReactiveAppointmentController(ReactiveAppointmentService reactiveService) {
+        this.reactiveService = reactiveService;
+    }
+
+    /**
+     * Bulk create appointments for a patient; same payload as {@link AppointmentController#createBulkAppointments}.
+     *
+     * @param patientName the patient's name
+     * @param ssn the patient's SSN
+     * @param payload the bulk appointment request
+     * @return 201 Created with the created appointment DTOs
+     */
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<List<AppointmentDto>>> createBulkAppointments(
+            @RequestParam @NotBlank String patientName,
+            @RequestParam @NotBlank String ssn,
+            @Valid @RequestBody BulkAppointmentRequest payload) {
+        return reactiveService.bulkCreateAppointments(patientName, ssn, payload.getReasons(), payload.getDates())
+            .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    /**
+     * Stream appointments matching a keyword in their reason, in id order, as NDJSON.
+     *
+     * @param keyword the keyword to search for in appointment reasons
+     * @param limit maximum number of appointments (omit for all matches), up to {@value #MAX_PAGE_SIZE}
+     * @return matching appointment DTOs, one JSON object per line
+     */
+    @GetMapping(value = "/search", produces = NDJSON)
+    public Flux<AppointmentDto> getAppointmentsByReason(
+            @RequestParam @NotBlank String keyword,
+            @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer limit) {
+        return reactiveService.getAppointmentsByReason(keyword, limit);
+    }
+
+    /**
+     * Find appointments dated within a window, one keyset page at a time, ordered by date then id;
+     * same parameters and paging as {@link AppointmentController#getAppointmentsByDateRange}.
+     * When the page is full, the {@value AppointmentController#NEXT_CURSOR_HEADER} response header carries
+     * the {@code afterDate=...&afterId=...} query parameters to request the next page with.
+     *
+     * @param from first date of the window (YYYY-MM-DD, inclusive)
+     * @param to last date of the window (YYYY-MM-DD, inclusive)
+     * @param afterDate date of the last appointment of the previous page (omit for the first page)
+     * @param afterId id of the last appointment of the previous page (omit for the first page)
+     * @param limit page size, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return list of appointment DTOs in the window, 400 if the window or cursor is invalid
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<AppointmentDto>>> getAppointmentsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+            @RequestParam(required = false) @Min(0) Long afterId,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        if (from.isAfter(to) || (afterDate == null) != (afterId == null)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return reactiveService.getAppointmentsByDateRange(from, to, afterDate, afterId, limit)
+            .collectList()
+            .map(found -> {
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (found.size() == limit) {
+                    AppointmentDto last = found.get(found.size() - 1);
+                    response.header(AppointmentController.NEXT_CURSOR_HEADER,
+                        "afterDate=" + last.getDate() + "&afterId=" + last.getId());
+                }
+                return response.body(found);
+            });
+    }
+
+    /**
+     * Delete all appointments for a patient by SSN.
+     * The number of deleted appointments is returned in the
+     * {@value AppointmentController#DELETED_COUNT_HEADER} header.
+     *
+     * @param ssn the patient's SSN
+     * @return 204 No Content if successful, 404 if patient not found
+     */
+    @DeleteMapping
+    public Mono<ResponseEntity<Void>> deleteAppointmentsBySSN(@RequestParam @NotBlank String ssn) {
+        return reactiveService.deleteAppointmentsBySSN(ssn)
+            .map(deleted -> ResponseEntity.noContent()
+                .header(AppointmentController.DELETED_COUNT_HEADER, String.valueOf(deleted))
+                .<Void>build())
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get the latest appointment for a patient.
+     *
+     * @param ssn the patient's SSN
+     * @return the latest appointment DTO if found, 404 if not found
+     */
+    @GetMapping("/latest")
+    public Mono<ResponseEntity<AppointmentDto>> getLatestAppointment(@RequestParam @NotBlank String ssn) {
+        return reactiveService.findLatestAppointmentBySSN(ssn)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,181 @@
+package nl.gerimedica.assignment;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reactive counterpart of the {@link HospitalService} operations behind {@link ReactiveAppointmentController}.
+ *
+ * Improvements:
+ * - Nothing is read or written until the caller subscribes; results are emitted as rows arrive,
+ *   and a slow subscriber slows the read rather than buffering rows
+ * - Writes run in R2DBC transactions ({@link TransactionalOperator}) on the same tables as JPA
+ * - After a write commits, the same events as {@link HospitalService} are published, so the
+ *   {@link PatientCache}, {@link ReasonSearchIndex} and {@link AppointmentRollup} stay in sync
+ * - Hibernate's second-level and query caches do not see R2DBC writes, so the affected entries are
+ *   evicted after each write commits
+ * - Every pipeline is subscribed on {@link Schedulers#boundedElastic()}: the embedded H2 driver runs
+ *   statements on the subscribing thread, so without it a request would hold its servlet thread until
+ *   the database answered; the bounded pool caps how many threads such waits can take
+ */
+@Service
+@Slf4j
+public class ReactiveAppointmentService {
+
+    private static final String PATIENT_APPOINTMENTS = Patient.class.getName() + ".appointments";
+
+    /** Outcome of a committed delete, published once the transaction is done. */
+    private static final class Deletion {
+        private final Long patientId;
+        private final long deleted;
+        private final List<AppointmentGroupCount> removedGroups;
+
+        private Deletion(Long patientId, long deleted, List<AppointmentGroupCount> removedGroups) {
+            this.patientId = patientId;
+            this.deleted = deleted;
+            this.removedGroups = removedGroups;
+        }
+    }
+
+    private final ReactiveAppointmentStore store;
+    private final TransactionalOperator tx;
+    private final AppointmentRollup appointmentRollup;
+    private final ApplicationEventPublisher events;
+    private final Cache secondLevelCache;
+    private final Scheduler database = Schedulers.boundedElastic();
+
+    public ReactiveAppointmentService(ReactiveAppointmentStore store, TransactionalOperator reactiveTransactions,
+                                      AppointmentRollup appointmentRollup, ApplicationEventPublisher events,
+                                      EntityManagerFactory entityManagerFactory) {
+        this.store = store;
+        this.tx = reactiveTransactions;
+        this.appointmentRollup = appointmentRollup;
+        this.events = events;
+        this.secondLevelCache = entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    /**
+     * Bulk create appointments for a patient, creating the patient if not found.
+     * As in {@link HospitalService#bulkCreateAppointments}, the patient is committed first in its own
+     * transaction and the appointments are then inserted as one batch in a second one.
+     *
+     * @return the created appointments; fails with IllegalArgumentException if reasons or dates are empty
+     */
+    @TrackUsage("Reactive bulk create appointments")
+    public Mono<List<AppointmentDto>> bulkCreateAppointments(String patientName, String ssn,
+                                                             List<String> reasons, List<LocalDate> dates) {
+        if (reasons == null || dates == null || reasons.isEmpty() || dates.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Reasons and dates must not be empty"));
+        }
+        return resolvePatientId(patientName, ssn)
+            .flatMap(patientId -> store.insertAppointments(patientId, reasons, dates)
+                .as(tx::transactional)
+                .doOnNext(created -> {
+                    secondLevelCache.evictCollectionData(PATIENT_APPOINTMENTS, patientId);
+                    secondLevelCache.evictQueryRegions();
+                    events.publishEvent(new AppointmentsCreatedEvent(created));
+                    log.info("Created {} appointments for patient SSN: {}", created.size(), ssn);
+                }))
+            .subscribeOn(database);
+    }
+
+    /**
+     * Appointments whose reason contains the keyword (case-insensitive), in id order.
+     *
+     * @param limit maximum number of appointments, or null for all of them
+     */
+    @TrackUsage("Reactive get appointments by reason")
+    public Flux<AppointmentDto> getAppointmentsByReason(String reasonKeyword, Integer limit) {
+        return store.findByReason(reasonKeyword, limit).subscribeOn(database);
+    }
+
+    /**
+     * One keyset page of the appointments dated between {@code from} and {@code to} (inclusive),
+     * ordered by date then id, as {@link HospitalService#getAppointmentsByDateRange}.
+     *
+     * @param afterDate date of the last appointment of the previous page, or null for the first page
+     * @param afterId id of the last appointment of the previous page, or null for the first page
+     */
+    @TrackUsage("Reactive get appointments by date range")
+    public Flux<AppointmentDto> getAppointmentsByDateRange(LocalDate from, LocalDate to,
+                                                           LocalDate afterDate, Long afterId, int limit) {
+        LocalDate lower = from;
+        long after = 0L;
+        if (afterDate != null && afterId != null && !afterDate.isBefore(from)) {
+            lower = afterDate;
+            after = afterId;
+        }
+        return store.findByDateRange(lower, to, after, limit).subscribeOn(database);
+    }
+
+    /**
+     * Delete all appointments of the patient with the given SSN, in one transaction.
+     * While the {@link AppointmentRollup} is enabled, the appointments are first counted per (reason, date).
+     *
+     * @return number of deleted appointments, or empty if the patient was not found
+     */
+    @TrackUsage("Reactive delete appointments")
+    public Mono<Long> deleteAppointmentsBySSN(String ssn) {
+        return store.findPatientId(ssn)
+            .flatMap(patientId -> {
+                Mono<List<AppointmentGroupCount>> counted = appointmentRollup.isEnabled()
+                    ? store.countGroupsByPatientId(patientId).collectList()
+                    : Mono.just(List.of());
+                return counted
+                    .flatMap(removed -> store.deleteByPatientId(patientId)
+                        .map(deleted -> new Deletion(patientId, deleted,
+                            appointmentRollup.isEnabled() ? AppointmentGroupCount.matching(removed, deleted) : null)))
+                    .as(tx::transactional);
+            })
+            .map(deletion -> {
+                secondLevelCache.evictEntityData(Appointment.class);
+                secondLevelCache.evictCollectionData(PATIENT_APPOINTMENTS, deletion.patientId);
+                secondLevelCache.evictQueryRegions();
+                events.publishEvent(new AppointmentsDeletedEvent(List.of(deletion.patientId), List.of(ssn),
+                    deletion.removedGroups));
+                log.info("Deleted {} appointments for patient SSN: {}", deletion.deleted, ssn);
+                return deletion.deleted;
+            })
+            .subscribeOn(database);
+    }
+
+    /**
+     * Find the latest appointment by SSN, using the appointment date.
+     *
+     * @return the latest appointment, or empty if the patient is unknown or has no appointments
+     */
+    @TrackUsage("Reactive find latest appointment")
+    public Mono<AppointmentDto> findLatestAppointmentBySSN(String ssn) {
+        return store.findLatestBySsn(ssn).subscribeOn(database);
+    }
+
+    /**
+     * Id of the patient with the SSN, inserting and committing the patient first if there is none.
+     * Losing an insert race on the unique SSN constraint is answered with the winner's row.
+     */
+    private Mono<Long> resolvePatientId(String patientName, String ssn) {
+        return store.findPatientId(ssn)
+            .switchIfEmpty(Mono.defer(() -> store.insertPatient(patientName, ssn)
+                .as(tx::transactional)
+                .doOnNext(id -> {
+                    log.info("Created new patient with SSN: {}", ssn);
+                    events.publishEvent(new PatientCreatedEvent(id, ssn));
+                })
+                .onErrorResume(DataIntegrityViolationException.class, e -> {
+                    log.info("Patient with SSN {} was created concurrently; using the existing record", ssn);
+                    return store.findPatientId(ssn).switchIfEmpty(Mono.error(e));
+                })));
+    }
+}
@@ -0,0 +1,188 @@
+package nl.gerimedica.assignment;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL for the reactive API, run over R2DBC on the same tables JPA maps.
+ * <p>
+ * - Reads select straight into {@link AppointmentDto}s with the same filters and ordering as the
+ *   {@link AppointmentRepository} queries they mirror, so both APIs use the same indexes
+ * - Appointment ids are taken from {@code appointment_seq} in blocks of {@value #ID_BLOCK}, the
+ *   way Hibernate's pooled-lo optimizer does ({@code hibernate.id.optimizer.pooled.preferred}),
+ *   so ids handed out here never overlap the ones Hibernate assigns
+ * - Appointment inserts go out as one batched statement per request
+ * </p>
+ * Transactions are applied by the caller ({@link ReactiveAppointmentService}).
+ */
+@Component
+public class ReactiveAppointmentStore {
+
+    /** Must match the {@code allocationSize} of the entities' sequence generators. */
+    static final int ID_BLOCK = 50;
+
+    private static final String DTO_COLUMNS = "SELECT a.id, a.reason, a.date, a.patient_id FROM appointment a ";
+
+    static final String LATEST_BY_SSN = DTO_COLUMNS + "WHERE a.id = ("
+        + "SELECT l.id FROM appointment l WHERE l.patient_id = (SELECT p.id FROM patient p WHERE p.ssn = :ssn) "
+        + "ORDER BY l.patient_id, l.date DESC, l.id DESC LIMIT 1)";
+
+    private final DatabaseClient db;
+
+    public ReactiveAppointmentStore(DatabaseClient db) {
+        this.db = db;
+    }
+
+    public Mono<Long> findPatientId(String ssn) {
+        return db.sql("SELECT id FROM patient WHERE ssn = :ssn")
+            .bind("ssn", ssn)
+            .map(row -> row.get("id", Long.class))
+            .one();
+    }
+
+    /**
+     * Insert a patient with a fresh id from {@code patient_seq}.
+     *
+     * @return the new patient's id; fails with a DataIntegrityViolationException if the SSN exists
+     */
+    public Mono<Long> insertPatient(String name, String ssn) {
+        return nextValue("patient_seq")
+            .flatMap(id -> db.sql("INSERT INTO patient (id, name, ssn) VALUES (:id, :name, :ssn)")
+                .bind("id", id)
+                .bind("name", name)
+                .bind("ssn", ssn)
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(id));
+    }
+
+    /**
+     * Insert appointments for one patient as a single batched statement.
+     *
+     * @return the inserted appointments, in the order of the reasons and dates
+     */
+    public Mono<List<AppointmentDto>> insertAppointments(Long patientId, List<String> reasons, List<LocalDate> dates) {
+        int count = Math.min(reasons.size(), dates.size());
+        return reserveIds(count).flatMap(ids -> {
+            List<AppointmentDto> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new AppointmentDto(ids.get(i), reasons.get(i), dates.get(i), patientId));
+            }
+            return db.inConnectionMany(connection -> {
+                    Statement insert = connection.createStatement(
+                        "INSERT INTO appointment (id, reason, date, patient_id) VALUES ($1, $2, $3, $4)");
+                    for (int i = 0; i < rows.size(); i++) {
+                        if (i > 0) {
+                            insert.add();
+                        }
+                        AppointmentDto row = rows.get(i);
+                        insert.bind(0, row.getId()).bind(1, row.getReason()).bind(2, row.getDate()).bind(3, patientId);
+                    }
+                    return Flux.from(insert.execute()).flatMap(Result::getRowsUpdated);
+                })
+                .then(Mono.just(rows));
+        });
+    }
+
+    /**
+     * Appointments whose reason contains the keyword (case-insensitive), in id order,
+     * emitted as rows are read.
+     *
+     * @param limit maximum number of rows, or null for all of them
+     */
+    public Flux<AppointmentDto> findByReason(String keyword, Integer limit) {
+        String sql = DTO_COLUMNS + "WHERE UPPER(a.reason) LIKE UPPER(:pattern) ESCAPE '\\' ORDER BY a.id";
+        DatabaseClient.GenericExecuteSpec query = db.sql(limit == null ? sql : sql + " LIMIT :limit")
+            .bind("pattern", AppointmentRepository.containsPattern(keyword));
+        if (limit != null) {
+            query = query.bind("limit", limit);
+        }
+        return query.map(ReactiveAppointmentStore::toDto).all();
+    }
+
+    /**
+     * Appointments dated between {@code from} and {@code to} (inclusive), by date then id, with the same
+     * keyset predicate as {@link AppointmentRepository#findByDateRange}: rows on {@code from} itself are
+     * only returned if their id is greater than {@code afterId}.
+     */
+    public Flux<AppointmentDto> findByDateRange(LocalDate from, LocalDate to, long afterId, int limit) {
+        return db.sql(DTO_COLUMNS + "WHERE a.date >= :from AND a.date <= :to AND (a.date > :from OR a.id > :afterId) "
+                + "ORDER BY a.date, a.id LIMIT :limit")
+            .bind("from", from)
+            .bind("to", to)
+            .bind("afterId", afterId)
+            .bind("limit", limit)
+            .map(ReactiveAppointmentStore::toDto)
+            .all();
+    }
+
+    /**
+     * The latest appointment of the patient with the given SSN, with the same nested top-1 subquery
+     * as {@link AppointmentRepository#findLatestByPatientId}: the inner query reads only the first
+     * entry of the (patient_id, date DESC, id DESC) index, the outer one is a primary-key lookup.
+     * A join ordered by date with LIMIT 1 would instead be planned as a scan plus sort.
+     */
+    public Mono<AppointmentDto> findLatestBySsn(String ssn) {
+        return db.sql(LATEST_BY_SSN)
+            .bind("ssn", ssn)
+            .map(ReactiveAppointmentStore::toDto)
+            .one();
+    }
+
+    /** The patient's appointments counted per (reason, date), as {@link AppointmentRepository#countGroupsByPatientIdIn}. */
+    public Flux<AppointmentGroupCount> countGroupsByPatientId(Long patientId) {
+        return db.sql("SELECT reason, date, COUNT(*) AS n FROM appointment WHERE patient_id = :patientId "
+                + "GROUP BY reason, date")
+            .bind("patientId", patientId)
+            .map(row -> new AppointmentGroupCount(row.get("reason", String.class),
+                row.get("date", LocalDate.class), row.get("n", Long.class)))
+            .all();
+    }
+
+    public Mono<Long> deleteByPatientId(Long patientId) {
+        return db.sql("DELETE FROM appointment WHERE patient_id = :patientId")
+            .bind("patientId", patientId)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    /**
+     * Reserve {@code count} appointment ids, one sequence call per {@value #ID_BLOCK}.
+     */
+    private Mono<List<Long>> reserveIds(int count) {
+        int blocks = (count + ID_BLOCK - 1) / ID_BLOCK;
+        return Flux.range(0, blocks)
+            .concatMap(block -> nextValue("appointment_seq"))
+            .collectList()
+            .map(starts -> {
+                List<Long> ids = new ArrayList<>(count);
+                for (Long start : starts) {
+                    for (int i = 0; i < ID_BLOCK && ids.size() < count; i++) {
+                        ids.add(start + i);
+                    }
+                }
+                return ids;
+            });
+    }
+
+    private Mono<Long> nextValue(String sequence) {
+        return db.sql("SELECT NEXT VALUE FOR " + sequence)
+            .map(row -> row.get(0, Long.class))
+            .one();
+    }
+
+    private static AppointmentDto toDto(Readable row) {
+        return new AppointmentDto(row.get("id", Long.class), row.get("reason", String.class),
+            row.get("date", LocalDate.class), row.get("patient_id", Long.class));
+    }
+
+}
@@ -0,0 +1,102 @@
+package nl.gerimedica.assignment;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+
+/**
+ * R2DBC access to the application database for the reactive API ({@link ReactiveAppointmentController}).
+ * <p>
+ * - The connection factory opens the same database as the JDBC data source: an H2 JDBC URL is
+ *   reused as is, so both stacks see the same tables; for another database set {@code spring.r2dbc.url}
+ * - Connections are pooled ({@code hospital.reactive.pool-size})
+ * - The pool is kept inside this configuration, not registered as a {@link ConnectionFactory} bean:
+ *   Spring Boot skips its JDBC data source when it finds one, and JPA needs that data source.
+ *   Boot's own R2DBC auto-configuration is excluded in {@link AssignmentApplication} for the same reason
+ * - Two transaction managers now exist; the JPA one is declared here as primary, so
+ *   {@code @Transactional} and {@link org.springframework.transaction.support.TransactionTemplate}
+ *   keep using JPA, and the reactive code uses its own {@link TransactionalOperator}
+ * </p>
+ */
+@Configuration
+public class ReactivePersistenceConfig implements DisposableBean {
+
+    private static final String H2_JDBC_PREFIX = "jdbc:h2:";
+
+    private final ConnectionPool connectionPool;
+
+    public ReactivePersistenceConfig(DataSourceProperties dataSource,
+                                     @Value("${spring.r2dbc.url:}") String r2dbcUrl,
+                                     @Value("${hospital.reactive.pool-size:20}") int poolSize) {
+        ConnectionFactory connections;
+        if (!r2dbcUrl.isEmpty()) {
+            connections = ConnectionFactories.get(r2dbcUrl);
+        } else {
+            String jdbcUrl = dataSource.determineUrl();
+            if (jdbcUrl == null || !jdbcUrl.startsWith(H2_JDBC_PREFIX)) {
+                throw new IllegalStateException("Set spring.r2dbc.url for the reactive API; only an H2 JDBC URL "
+                    + "can be reused, got " + jdbcUrl);
+            }
+            connections = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(jdbcUrl.substring(H2_JDBC_PREFIX.length()))
+                .username(dataSource.determineUsername())
+                .password(dataSource.determinePassword())
+                .build());
+        }
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connections)
+            .name("hospital-reactive-pool")
+            .initialSize(0)
+            .maxSize(poolSize)
+            .maxAcquireTime(Duration.ofSeconds(5))
+            .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public ReactiveTransactionManager reactiveTransactionManager() {
+        return new R2dbcTransactionManager(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactions(ReactiveTransactionManager reactiveTransactionManager) {
+        return TransactionalOperator.create(reactiveTransactionManager);
+    }
+
+    /** The JPA transaction manager Spring Boot would create, marked primary. */
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                    ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,25 @@
+package nl.gerimedica.assignment;
+
+/**
+ * Report row: number of appointments with one exact reason.
+ */
+public class ReasonCount {
+
+    private String reason;
+    private long count;
+
+    // Default constructor for JSON deserialization
+    public ReasonCount() {}
+
+    public ReasonCount(String reason, long count) {
+        this.reason = reason;
+        this.count = count;
+    }
+
+    // Getters and setters
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
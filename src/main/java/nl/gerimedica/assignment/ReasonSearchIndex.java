@@ -0,0 +1,424 @@
+package nl.gerimedica.assignment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process trigram index over appointment reasons.
+ * <p>
+ * Replaces the {@code lower(reason) like '%kw%'} table scan for keyword search:
+ * - every distinct reason keeps a sorted {@code long[]} of appointment ids (its posting)
+ * - every upper-cased trigram points at the distinct reasons containing it
+ * - a keyword of three or more characters only checks the reasons sharing its rarest trigram;
+ *   shorter keywords scan the distinct reasons, which are far fewer than the appointments
+ * - matching postings are merged in id order, so keyset pages cost O(limit * log postings)
+ * </p>
+ * Matching is {@code fold(reason).contains(fold(keyword))}, where {@link #fold} is the same
+ * upper-casing the database applies in {@code UPPER(reason) LIKE UPPER(pattern)}, so both paths
+ * agree on non-ASCII text too (e.g. {@code ß} matching {@code ss}).
+ * <p>
+ * Memory is a few dozen bytes per appointment: ids are primitive longs in the reason's posting
+ * and in their patient's entry, not boxed set or map entries. The index holds at most
+ * {@code hospital.search.index.max-appointments} appointments; past that it drops its contents
+ * and stays unready, so keyword search keeps using the database instead of exhausting the heap.
+ * </p>
+ * <p>
+ * The index is loaded in the background once the application is ready and then kept in sync by
+ * the after-commit {@link AppointmentsCreatedEvent} and {@link AppointmentsDeletedEvent}.
+ * Until loading finishes, {@link #isReady()} is false and callers should query the database.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ReasonSearchIndex {
+
+    private static final int GRAM = 3;
+
+    /** All appointment ids sharing one exact reason string, sorted ascending. */
+    private static final class Posting {
+        private final String reason;
+        private final String folded;
+        private long[] ids = new long[4];
+        private int size;
+
+        private Posting(String reason) {
+            this.reason = reason;
+            this.folded = fold(reason);
+        }
+
+        /** @return false if the id was already present */
+        private boolean add(long id) {
+            // Ids are allocated in ascending order, so this is almost always an append
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return true;
+            }
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) return false;
+            at = -at - 1;
+            ensureCapacity();
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+            return true;
+        }
+
+        private void remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            if (size > 16 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, ids.length / 2);
+            }
+        }
+
+        /** @return position of the first id greater than {@code afterId} */
+        private int after(long afterId) {
+            int at = Arrays.binarySearch(ids, 0, size, afterId);
+            return at >= 0 ? at + 1 : -at - 1;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+    }
+
+    /** Ids of one patient's indexed appointments, with the posting each one is in. */
+    private static final class PatientRows {
+        private long[] ids = new long[2];
+        private Posting[] postings = new Posting[2];
+        private int size;
+
+        private void add(long id, Posting posting) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                postings = Arrays.copyOf(postings, capacity);
+            }
+            ids[size] = id;
+            postings[size++] = posting;
+        }
+    }
+
+    /** Merge cursor over one posting's ids. */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final Posting posting;
+        private int position;
+        private long head;
+
+        private Cursor(Posting posting, int position) {
+            this.posting = posting;
+            this.position = position;
+            this.head = posting.ids[position];
+        }
+
+        private boolean advance() {
+            if (++position >= posting.size) return false;
+            head = posting.ids[position];
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Long.compare(head, other.head);
+        }
+    }
+
+    private final AppointmentRepository appointmentRepo;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final long maxAppointments;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Posting> postingsByReason = new HashMap<>();
+    private final Map<String, Set<Posting>> postingsByGram = new HashMap<>();
+    private final Map<Long, PatientRows> rowsByPatient = new HashMap<>();
+    private long size;
+    /** Set once the index outgrew its cap; from then on it stays empty and unready. */
+    private volatile boolean overCapacity;
+
+    /** Patients deleted while loading; the loader must not re-add their (already deleted) rows. */
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public ReasonSearchIndex(AppointmentRepository appointmentRepo,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${hospital.search.index.enabled:true}") boolean enabled,
+                             @Value("${hospital.search.index.max-appointments:2000000}") long maxAppointments) {
+        this.appointmentRepo = appointmentRepo;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxAppointments = maxAppointments;
+    }
+
+    /**
+     * Case folding shared with the database path: H2's {@code UPPER()} is
+     * {@link String#toUpperCase()}, which uses the JVM's default locale.
+     */
+    static String fold(String text) {
+        return text.toUpperCase(Locale.getDefault());
+    }
+
+    /**
+     * @return true once the index holds every committed appointment and can answer searches
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Find the ids of appointments whose reason contains the keyword (case-insensitive).
+     *
+     * @param keyword the keyword to search for
+     * @param afterId only return ids greater than this
+     * @param limit maximum number of ids to return
+     * @return matching ids in ascending order, at most {@code limit} long
+     */
+    public List<Long> search(String keyword, long afterId, int limit) {
+        String needle = fold(keyword);
+        List<Long> result = new ArrayList<>(Math.min(limit, 1024));
+        lock.readLock().lock();
+        try {
+            PriorityQueue<Cursor> merge = new PriorityQueue<>();
+            for (Posting posting : candidates(needle)) {
+                if (posting.folded.contains(needle)) {
+                    int from = posting.after(afterId);
+                    if (from < posting.size) {
+                        merge.add(new Cursor(posting, from));
+                    }
+                }
+            }
+            while (result.size() < limit && !merge.isEmpty()) {
+                Cursor cursor = merge.poll();
+                result.add(cursor.head);
+                if (cursor.advance()) {
+                    merge.add(cursor);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Number of indexed appointments per exact reason string.
+     */
+    public Map<String, Integer> countsByReason() {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new HashMap<>(postingsByReason.size() * 2);
+            postingsByReason.forEach((reason, posting) -> counts.put(reason, posting.size));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add appointments to the index. Adding an already indexed id is a no-op.
+     */
+    public void addAll(Collection<AppointmentDto> appointments) {
+        lock.writeLock().lock();
+        try {
+            for (AppointmentDto appointment : appointments) {
+                if (!add(appointment)) break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every appointment of the given patients from the index.
+     */
+    public void removePatients(Collection<Long> patientIds) {
+        lock.writeLock().lock();
+        try {
+            if (overCapacity) return;
+            for (Long patientId : patientIds) {
+                if (!ready) {
+                    deletedWhileLoading.add(patientId);
+                }
+                PatientRows rows = rowsByPatient.remove(patientId);
+                if (rows == null) continue;
+                for (int i = 0; i < rows.size; i++) {
+                    Posting posting = rows.postings[i];
+                    posting.remove(rows.ids[i]);
+                    if (posting.size == 0) {
+                        dropPosting(posting);
+                    }
+                }
+                size -= rows.size;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentsCreated(AppointmentsCreatedEvent event) {
+        if (enabled) {
+            addAll(event.getAppointments());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentsDeleted(AppointmentsDeletedEvent event) {
+        if (enabled) {
+            removePatients(event.getPatientIds());
+        }
+    }
+
+    /**
+     * Load all existing appointments in the background, without delaying startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            log.info("Reason search index disabled; keyword search uses the database");
+            return;
+        }
+        Thread loader = new Thread(this::load, "reason-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void load() {
+        long start = System.nanoTime();
+        try {
+            Long loaded = readOnlyTx.execute(status -> {
+                long count = 0;
+                try (Stream<AppointmentDto> rows = appointmentRepo.streamAllForIndex()) {
+                    Iterator<AppointmentDto> it = rows.iterator();
+                    while (it.hasNext()) {
+                        AppointmentDto row = it.next();
+                        if (deletedWhileLoading.contains(row.getPatientId())) continue;
+                        lock.writeLock().lock();
+                        try {
+                            if (!add(row)) return null;
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                        count++;
+                    }
+                }
+                return count;
+            });
+            if (loaded == null) return;
+            ready = true;
+            deletedWhileLoading.clear();
+            log.info("Reason search index loaded {} appointments in {} ms",
+                loaded, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("Failed to load reason search index; keyword search keeps using the database", e);
+        }
+    }
+
+    /**
+     * @return false if the index is (now) over capacity and has been dropped
+     */
+    private boolean add(AppointmentDto appointment) {
+        if (overCapacity) return false;
+        if (size >= maxAppointments) {
+            dropAll();
+            return false;
+        }
+        long id = appointment.getId();
+        Posting posting = postingsByReason.computeIfAbsent(appointment.getReason(), this::newPosting);
+        if (posting.add(id)) {
+            rowsByPatient.computeIfAbsent(appointment.getPatientId(), patientId -> new PatientRows()).add(id, posting);
+            size++;
+        }
+        return true;
+    }
+
+    private void dropAll() {
+        overCapacity = true;
+        ready = false;
+        postingsByReason.clear();
+        postingsByGram.clear();
+        rowsByPatient.clear();
+        size = 0;
+        log.warn("Reason search index exceeds {} appointments; dropping it, keyword search uses the database",
+            maxAppointments);
+    }
+
+    private Posting newPosting(String reason) {
+        Posting posting = new Posting(reason);
+        for (String gram : grams(posting.folded)) {
+            postingsByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(posting);
+        }
+        return posting;
+    }
+
+    private void dropPosting(Posting posting) {
+        postingsByReason.remove(posting.reason);
+        for (String gram : grams(posting.folded)) {
+            Set<Posting> postings = postingsByGram.get(gram);
+            if (postings != null) {
+                postings.remove(posting);
+                if (postings.isEmpty()) {
+                    postingsByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reasons that may contain the needle: those sharing its rarest trigram,
+     * or every distinct reason for needles shorter than a trigram.
+     */
+    private Collection<Posting> candidates(String needle) {
+        if (needle.length() < GRAM) {
+            return postingsByReason.values();
+        }
+        Set<Posting> smallest = null;
+        for (String gram : grams(needle)) {
+            Set<Posting> postings = postingsByGram.get(gram);
+            if (postings == null) {
+                return Set.of();
+            }
+            if (smallest == null || postings.size() < smallest.size()) {
+                smallest = postings;
+            }
+        }
+        return smallest;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
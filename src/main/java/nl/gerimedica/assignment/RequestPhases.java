@@ -0,0 +1,78 @@
+package nl.gerimedica.assignment;
+
+/**
+ * Time spent per phase (database, mapping, serialization) and rows read while handling one request.
+ * <p>
+ * The instance for the current request is bound to the handling thread by
+ * {@link RequestPhasesInterceptor}; {@link LatencyMetricsAspect} and the timed JSON converter add
+ * to it. Work on other threads (e.g. a streamed response body) must {@link #bind()} it explicitly.
+ * A request is handled by one thread at a time, so the counters are not synchronized.
+ * </p>
+ */
+public final class RequestPhases {
+
+    /** Phases of a request, used as the {@code phase} tag. */
+    public enum Phase {
+        DB("db"), MAPPING("mapping"), SERIALIZATION("serialization");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private static final ThreadLocal<RequestPhases> CURRENT = new ThreadLocal<>();
+
+    private final long[] nanos = new long[Phase.values().length];
+    private long rows;
+
+    /**
+     * @return the phases of the request handled by this thread, or null outside a request
+     */
+    public static RequestPhases current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Add time to a phase of the current request; a no-op outside a request.
+     */
+    public static void add(Phase phase, long elapsedNanos) {
+        RequestPhases phases = CURRENT.get();
+        if (phases != null) {
+            phases.nanos[phase.ordinal()] += elapsedNanos;
+        }
+    }
+
+    /**
+     * Add rows read to the current request; a no-op outside a request.
+     */
+    public static void addRows(long count) {
+        RequestPhases phases = CURRENT.get();
+        if (phases != null) {
+            phases.rows += count;
+        }
+    }
+
+    /** Make this the current request's phases on the calling thread. */
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    /** Clear the calling thread's binding. */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    public long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public long rows() {
+        return rows;
+    }
+}
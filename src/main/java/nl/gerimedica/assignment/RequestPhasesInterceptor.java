@@ -0,0 +1,56 @@
+package nl.gerimedica.assignment;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Binds a {@link RequestPhases} to each API request and records it via {@link LatencyMetrics}
+ * when the request completes.
+ * <p>
+ * For asynchronous responses (e.g. the streamed search) the same instance is kept in a request
+ * attribute across the initial and the async dispatch, and recorded once, after the async dispatch.
+ * </p>
+ */
+@Component
+public class RequestPhasesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ATTRIBUTE = RequestPhases.class.getName();
+    private static final String UNMAPPED = "UNKNOWN";
+
+    private final LatencyMetrics latencyMetrics;
+
+    public RequestPhasesInterceptor(LatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestPhases phases = (RequestPhases) request.getAttribute(ATTRIBUTE);
+        if (phases == null) {
+            phases = new RequestPhases();
+            request.setAttribute(ATTRIBUTE, phases);
+        }
+        phases.bind();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        RequestPhases.unbind();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestPhases.unbind();
+        RequestPhases phases = (RequestPhases) request.getAttribute(ATTRIBUTE);
+        if (phases != null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            latencyMetrics.recordRequest(pattern != null ? pattern.toString() : UNMAPPED, phases);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package nl.gerimedica.assignment;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * DTO for operations that act on many patients at once, identified by SSN.
+ */
+public class SsnBatchRequest {
+
+    @NotEmpty(message = "SSN list must not be empty")
+    @Size(max = 500, message = "SSN list must contain at most 500 items")
+    private List<@NotBlank(message = "SSN must not be blank") String> ssns;
+
+    // Default constructor for JSON deserialization
+    public SsnBatchRequest() {}
+
+    public SsnBatchRequest(List<String> ssns) {
+        this.ssns = ssns;
+    }
+
+    // Getters and setters
+    public List<String> getSsns() {
+        return ssns;
+    }
+    public void setSsns(List<String> ssns) {
+        this.ssns = ssns;
+    }
+}
@@ -0,0 +1,22 @@
+package nl.gerimedica.assignment;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service operation whose successful calls are counted by {@link UsageMetrics}.
+ * Recording is done by {@link UsageTrackingAspect}, so the operation itself has no usage code.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TrackUsage {
+
+    /**
+     * Operation name, used as the {@code operation} tag of the {@code hospital.usage} counter.
+     */
+    String value();
+}
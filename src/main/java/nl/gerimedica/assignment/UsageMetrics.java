@@ -0,0 +1,120 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage counters per service operation, replacing the static counter and per-call log line
+ * of the former {@code HospitalUtils.recordUsage}.
+ * <p>
+ * - Each operation has its own {@link LongAdder}, so concurrent callers do not contend on one counter;
+ *   a call only bumps a cell of its thread's stripe and allocates nothing once the operation is known
+ * - Counters are published as the {@code hospital.usage} meter, tagged with {@code operation}
+ * - A background thread drains the counters every {@code hospital.usage.drain-interval}: it logs the
+ *   per-operation delta since its previous drain as one summary line, keeping log I/O off request threads
+ *   and never dropping a call from the report
+ * </p>
+ */
+@Component
+@Slf4j
+public class UsageMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    /** Counter totals as of the previous drain; guarded by {@code this}. */
+    private final Map<String, Long> reported = new HashMap<>();
+
+    private final ScheduledExecutorService drainer;
+
+    public UsageMetrics(MeterRegistry meterRegistry,
+                        @Value("${hospital.usage.drain-interval:10s}") Duration drainInterval) {
+        this.meterRegistry = meterRegistry;
+        this.drainer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "usage-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = drainInterval.toMillis();
+        drainer.scheduleWithFixedDelay(this::drainQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record one call of an operation. Never blocks and never logs.
+     *
+     * @param operation operation name
+     */
+    public void record(String operation) {
+        LongAdder counter = counters.get(operation);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(operation, this::register);
+        }
+        counter.increment();
+    }
+
+    /**
+     * @return number of recorded calls of the operation since startup
+     */
+    public long count(String operation) {
+        LongAdder counter = counters.get(operation);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Collect the calls recorded since the previous drain and log them as one summary line.
+     * A call that races with the drain is reported by the next one.
+     *
+     * @return number of calls per operation since the previous drain
+     */
+    synchronized Map<String, Long> drain() {
+        Map<String, Long> drainedCounts = new TreeMap<>();
+        counters.forEach((operation, counter) -> {
+            long total = counter.sum();
+            long delta = total - reported.getOrDefault(operation, 0L);
+            if (delta > 0) {
+                drainedCounts.put(operation, delta);
+                reported.put(operation, total);
+            }
+        });
+        if (!drainedCounts.isEmpty()) {
+            log.info("Usage since last report: {}", drainedCounts);
+        }
+        return drainedCounts;
+    }
+
+    @PreDestroy
+    public void stop() {
+        drainer.shutdown();
+        drain();
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("Failed to drain usage events", e);
+        }
+    }
+
+    private LongAdder register(String operation) {
+        LongAdder counter = new LongAdder();
+        FunctionCounter.builder("hospital.usage", counter, LongAdder::sum)
+            .description("Successful calls per service operation")
+            .tag("operation", operation)
+            .register(meterRegistry);
+        return counter;
+    }
+}
@@ -0,0 +1,37 @@
+package nl.gerimedica.assignment;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records a usage event for every method annotated with {@link TrackUsage} that returns normally.
+ * A {@link Mono} or {@link Flux} only does its work once subscribed, so for reactive methods the
+ * event is recorded when the pipeline completes successfully, not when the method returns it.
+ */
+@Aspect
+@Component
+public class UsageTrackingAspect {
+
+    private final UsageMetrics usageMetrics;
+
+    public UsageTrackingAspect(UsageMetrics usageMetrics) {
+        this.usageMetrics = usageMetrics;
+    }
+
+    @Around("@annotation(trackUsage)")
+    public Object recordUsage(ProceedingJoinPoint call, TrackUsage trackUsage) throws Throwable {
+        Object result = call.proceed();
+        if (result instanceof Mono<?> mono) {
+            return mono.doOnSuccess(value -> usageMetrics.record(trackUsage.value()));
+        }
+        if (result instanceof Flux<?> flux) {
+            return flux.doOnComplete(() -> usageMetrics.record(trackUsage.value()));
+        }
+        usageMetrics.record(trackUsage.value());
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, e.g. while blocking inside a
+ * {@code synchronized} block of a JDBC driver. Only active when {@code spring.threads.virtual.enabled=true}.
+ * <p>
+ * - Listens to the JFR {@code jdk.VirtualThreadPinned} event in-process, for pins longer than
+ *   {@code hospital.virtual-threads.pinning-threshold}
+ * - Counts every pin in the {@code hospital.virtual-threads.pinned} meter
+ * - Logs the stack of each distinct pinning site once, so a hot site does not flood the log
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Counter pinned;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private final RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${hospital.virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        this.pinned = Counter.builder("hospital.virtual-threads.pinned")
+            .description("Virtual threads pinned to their carrier for longer than the threshold")
+            .register(meterRegistry);
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold {} ms)", threshold.toMillis());
+    }
+
+    /**
+     * @return number of pins reported since startup
+     */
+    public long pinnedCount() {
+        return (long) pinned.count();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return;
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        String site = frames.stream()
+            .filter(RecordedFrame::isJavaFrame)
+            .limit(LOGGED_FRAMES)
+            .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber())
+            .collect(Collectors.joining("\n\tat "));
+        if (reportedSites.add(site)) {
+            log.warn("Virtual thread pinned for {} ms at:\n\tat {}", event.getDuration().toMillis(), site);
+        }
+    }
+}
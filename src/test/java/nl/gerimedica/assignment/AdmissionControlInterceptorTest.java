@@ -0,0 +1,109 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs API requests through admission control with small limits.
+ * MockMvc requests come from 127.0.0.1, configured as a trusted proxy, so their X-Client-Id counts.
+ */
+@SpringBootTest(properties = {
+    "hospital.admission.enabled=true",
+    "hospital.admission.rate=0.1",
+    "hospital.admission.burst=10",
+    "hospital.admission.trusted-proxies=127.0.0.1",
+    "hospital.admission.costs=GET /api/v1/appointments/search=5",
+    "hospital.admission.endpoint-concurrency=GET /api/v1/appointments/search/stream=1"
+})
+@ActiveProfiles("test")
+class AdmissionControlInterceptorTest {
+
+    private static final String SEARCH = "/api/v1/appointments/search";
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    void shouldRejectAClientOverItsBudgetWithRetryAfter() throws Exception {
+        // Given
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get(SEARCH).param("keyword", "a").header("X-Client-Id", "partner"))
+                .andExpect(status().isOk());
+        }
+
+        // When & Then
+        mockMvc.perform(get(SEARCH).param("keyword", "a").header("X-Client-Id", "partner"))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "50"));
+        mockMvc.perform(get(SEARCH).param("keyword", "a").header("X-Client-Id", "dashboard"))
+            .andExpect(status().isOk());
+        assertEquals(1.0, meterRegistry.get("hospital.admission.requests")
+            .tag("endpoint", "GET " + SEARCH).tag("outcome", "rate_limited").counter().count());
+    }
+
+    @Test
+    void shouldHoldInFlightSlotUntilStreamCompletes() throws Exception {
+        // Given
+        MvcResult streaming = mockMvc.perform(get(SEARCH + "/stream").param("keyword", "a")
+                .header("X-Client-Id", "stream-a"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // When & Then
+        mockMvc.perform(get(SEARCH + "/stream").param("keyword", "a").header("X-Client-Id", "stream-b"))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        mockMvc.perform(asyncDispatch(streaming)).andExpect(status().isOk());
+        mockMvc.perform(get(SEARCH + "/stream").param("keyword", "a").header("X-Client-Id", "stream-b"))
+            .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void shouldIgnoreClientHeaderFromUntrustedAddresses() throws Exception {
+        // Given: a caller rotating X-Client-Id to get a fresh bucket with every request
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get(SEARCH).param("keyword", "a").header("X-Client-Id", "rotating-" + i)
+                    .with(fromAddress("10.1.2.3")))
+                .andExpect(status().isOk());
+        }
+
+        // When & Then: it still shares one bucket, keyed by its address
+        mockMvc.perform(get(SEARCH).param("keyword", "a").header("X-Client-Id", "rotating-2")
+                .with(fromAddress("10.1.2.3")))
+            .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get(SEARCH).param("keyword", "a").with(fromAddress("10.1.2.4")))
+            .andExpect(status().isOk());
+    }
+
+    private static RequestPostProcessor fromAddress(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
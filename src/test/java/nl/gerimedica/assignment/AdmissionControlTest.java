@@ -0,0 +1,150 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-client rate limiting and concurrency limits.
+ * The refill rate is low enough that no tokens come back while a test runs.
+ */
+class AdmissionControlTest {
+
+    private static final String SEARCH = "GET /api/v1/appointments/search";
+    private static final String LATEST = "GET /api/v1/appointments/latest";
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        admissionControl = new AdmissionControl(meterRegistry, true, 0.1, 10, 0.1, 50,
+            SEARCH + "=5", "partner=0.2", 2, SEARCH + "=3", 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void shouldChargeExpensiveEndpointsMoreTokens() {
+        // When
+        AdmissionControl.Admission first = admit(SEARCH, "client-a");
+        AdmissionControl.Admission second = admit(SEARCH, "client-a");
+        AdmissionControl.Admission third = admit(SEARCH, "client-a");
+
+        // Then
+        assertTrue(first.isAdmitted());
+        assertTrue(second.isAdmitted());
+        assertEquals(AdmissionControl.Outcome.RATE_LIMITED, third.getOutcome());
+        assertEquals(50, third.getRetryAfterSeconds(), "5 tokens at 0.1 tokens/s");
+        assertTrue(admit(SEARCH, "client-b").isAdmitted(), "Other clients have their own bucket");
+        assertEquals(1.0, meterRegistry.get("hospital.admission.requests")
+            .tag("endpoint", SEARCH).tag("outcome", "rate_limited").counter().count());
+    }
+
+    @Test
+    void shouldScaleBucketForClientsWithTheirOwnRate() {
+        // When
+        int admitted = 0;
+        while (admit(LATEST, "partner").isAdmitted()) {
+            admitted++;
+        }
+
+        // Then
+        assertEquals(20, admitted, "Twice the rate, so twice the burst");
+    }
+
+    @Test
+    void shouldLimitRequestsInFlightPerClient() {
+        // Given
+        AdmissionControl.Admission first = admissionControl.admit(LATEST, "client-a");
+        AdmissionControl.Admission second = admissionControl.admit(LATEST, "client-a");
+
+        // When
+        AdmissionControl.Admission third = admissionControl.admit(LATEST, "client-a");
+        first.release();
+        AdmissionControl.Admission afterRelease = admissionControl.admit(LATEST, "client-a");
+
+        // Then
+        assertTrue(second.isAdmitted());
+        assertEquals(AdmissionControl.Outcome.CONCURRENCY_LIMITED, third.getOutcome());
+        assertEquals(1, third.getRetryAfterSeconds());
+        assertTrue(afterRelease.isAdmitted());
+    }
+
+    @Test
+    void shouldLimitRequestsInFlightPerEndpointAcrossClients() {
+        // Given
+        for (String client : new String[] {"client-a", "client-b", "client-c"}) {
+            assertTrue(admissionControl.admit(SEARCH, client).isAdmitted());
+        }
+
+        // When
+        AdmissionControl.Admission fourth = admissionControl.admit(SEARCH, "client-d");
+
+        // Then
+        assertEquals(AdmissionControl.Outcome.CONCURRENCY_LIMITED, fourth.getOutcome());
+        assertEquals(3.0, meterRegistry.get("hospital.admission.in-flight").tag("endpoint", SEARCH).gauge().value());
+        assertTrue(admissionControl.admit(LATEST, "client-d").isAdmitted(), "Other endpoints are not capped");
+    }
+
+    @Test
+    void shouldAdmitEverythingWhenDisabled() {
+        // Given
+        AdmissionControl disabled = new AdmissionControl(meterRegistry, false, 0.1, 1, 1, 1,
+            "", "", 1, "", 100, Duration.ofMinutes(10));
+
+        // When & Then
+        for (int i = 0; i < 10; i++) {
+            assertTrue(disabled.admit(SEARCH, "client-a").isAdmitted());
+        }
+    }
+
+    @Test
+    void shouldCapAllClientsWithTheGlobalBucket() {
+        // When: 50 global tokens, 10 per client
+        int admitted = 0;
+        for (int client = 0; client < 10; client++) {
+            for (int i = 0; i < 10; i++) {
+                if (admit(LATEST, "client-" + client).isAdmitted()) {
+                    admitted++;
+                }
+            }
+        }
+
+        // Then
+        assertEquals(50, admitted);
+        assertEquals(AdmissionControl.Outcome.OVERLOADED, admit(LATEST, "client-new").getOutcome());
+        assertEquals(51.0, meterRegistry.get("hospital.admission.requests")
+            .tag("endpoint", LATEST).tag("outcome", "overloaded").counter().count());
+    }
+
+    @Test
+    void shouldRejectInvalidLimitsAtStartup() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(meterRegistry, true, 0, 10, 1, 1,
+            "", "", 1, "", 100, Duration.ofMinutes(10)));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(meterRegistry, true, 1, 10, 1, 1,
+            "", "partner=0", 1, "", 100, Duration.ofMinutes(10)));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(meterRegistry, true, 1, 10, 1, 1,
+            SEARCH + "=-1", "", 1, "", 100, Duration.ofMinutes(10)));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(meterRegistry, true, 1, 10, 1, 1,
+            "", "", 1, SEARCH + "=0", 100, Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void shouldRejectMalformedLimits() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> AdmissionControl.parseNumbers("GET /search", Integer::valueOf));
+        assertEquals(5, AdmissionControl.parseNumbers(" " + SEARCH + " = 5 ,", Integer::valueOf).get(SEARCH));
+    }
+
+    /** Admit and release right away, so only the token bucket limits. */
+    private AdmissionControl.Admission admit(String endpoint, String client) {
+        AdmissionControl.Admission admission = admissionControl.admit(endpoint, client);
+        admission.release();
+        return admission;
+    }
+}
@@ -1,6 +1,8 @@
 package nl.gerimedica.assignment;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,11 +11,23 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -31,6 +45,21 @@ class AppointmentControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UsageMetrics usageMetrics;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentImportService importService;
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -43,7 +72,8 @@ class AppointmentControllerIntegrationTest {
         // Given
         BulkAppointmentRequest request = new BulkAppointmentRequest();
         request.setReasons(Arrays.asList("Checkup"));
-        request.setDates(Arrays.asList("2025-01-15"));
+        request.setDates(Arrays.asList(LocalDate.of(2025, 1, 15)));
+        long usageBefore = usageMetrics.count("Bulk create appointments");
 
         // When & Then
         mockMvc.perform(post("/api/v1/appointments/bulk")
@@ -53,6 +83,46 @@ class AppointmentControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$").isArray());
+        assertTrue(usageMetrics.count("Bulk create appointments") > usageBefore);
+    }
+
+    @Test
+    void shouldCreateOnePatientForParallelBulkRequestsWithNewSSN() throws Exception {
+        // Given
+        int requests = 12;
+        String ssn = "RACE-000001";
+        BulkAppointmentRequest request = new BulkAppointmentRequest();
+        request.setReasons(Arrays.asList("Checkup"));
+        request.setDates(Arrays.asList(LocalDate.of(2025, 1, 15)));
+        String body = objectMapper.writeValueAsString(request);
+        ExecutorService pool = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                statuses.add(pool.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/v1/appointments/bulk")
+                            .param("patientName", "Race Condition")
+                            .param("ssn", ssn)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                        .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            // Then
+            for (Future<Integer> status : statuses) {
+                assertEquals(201, status.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, patientRepository.findBySsnIn(List.of(ssn)).size());
+        assertEquals(requests, patientRepository.findBySsnWithAppointments(ssn).orElseThrow().getAppointments().size());
     }
 
     @Test
@@ -71,6 +141,44 @@ class AppointmentControllerIntegrationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void shouldRunSubmittedJobAndReportProgress() throws Exception {
+        // Given
+        String body = "{\"appointments\":["
+                + "{\"patientName\":\"Job Patient\",\"ssn\":\"JOB-0001\",\"reason\":\"Job visit\",\"date\":\"2025-05-01\"},"
+                + "{\"patientName\":\"Job Patient\",\"ssn\":\"JOB-0001\",\"reason\":\"Job visit\",\"date\":\"not-a-date\"}]}";
+
+        // When
+        MvcResult submitted = mockMvc.perform(post("/api/v1/appointments/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.totalRows").value(2))
+                .andReturn();
+        String location = submitted.getResponse().getHeader("Location");
+
+        // Then
+        String state = "QUEUED";
+        for (int i = 0; i < 100 && !state.equals("COMPLETED"); i++) {
+            Thread.sleep(20);
+            state = objectMapper.readTree(mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).get("status").asText();
+        }
+        mockMvc.perform(get(location))
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.processedRows").value(2))
+                .andExpect(jsonPath("$.importedRows").value(1))
+                .andExpect(jsonPath("$.rejectedRows").value(1))
+                .andExpect(jsonPath("$.summary.chunks[0].status").value("COMMITTED"));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownJob() throws Exception {
+        mockMvc.perform(get("/api/v1/appointments/jobs/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldSearchAppointmentsByReason() throws Exception {
         // When & Then
@@ -119,4 +227,447 @@ class AppointmentControllerIntegrationTest {
                 .param("ssn", ""))
                 .andExpect(status().isBadRequest());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void shouldImportNdjsonAndReportRejectedLines() throws Exception {
+        // Given
+        String body = String.join("\n",
+                "{\"patientName\":\"Import One\",\"ssn\":\"IMP-0001\",\"reason\":\"Checkup\",\"date\":\"2025-03-01\"}",
+                "{\"patientName\":\"Import Two\",\"ssn\":\"IMP-0002\",\"reason\":\"X-Ray\",\"date\":\"2025-03-02\"}",
+                "not json",
+                "{\"patientName\":\"Import One\",\"ssn\":\"IMP-0001\",\"reason\":\"Follow-up\",\"date\":\"2025-13-40\"}");
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/appointments/import")
+                .contentType("application/x-ndjson")
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRows").value(4))
+                .andExpect(jsonPath("$.importedRows").value(2))
+                .andExpect(jsonPath("$.rejectedRows").value(2))
+                .andExpect(jsonPath("$.chunks[0].status").value("COMMITTED"))
+                .andExpect(jsonPath("$.chunks[0].error").value(org.hamcrest.Matchers.startsWith("Line 3:")));
+    }
+
+    @Test
+    void shouldRejectOverlongLinesWithoutAbortingImport() throws Exception {
+        // Given
+        String body = String.join("\r\n",
+                "{\"patientName\":\"Import Five\",\"ssn\":\"IMP-0005\",\"reason\":\"" + "x".repeat(10_000) + "\",\"date\":\"2025-03-05\"}",
+                "{\"patientName\":\"Import Five\",\"ssn\":\"IMP-0005\",\"reason\":\"Checkup\",\"date\":\"2025-03-06\"}");
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/appointments/import")
+                .contentType("application/x-ndjson")
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(1))
+                .andExpect(jsonPath("$.rejectedRows").value(1))
+                .andExpect(jsonPath("$.chunks[0].error").value("Line 1: Line is longer than 8192 characters"));
+    }
+
+    @Test
+    void shouldNotLeavePatientsOfFailedChunkBehind() {
+        // Given: a row that passes validation but cannot be inserted (reason longer than its column)
+        List<AppointmentImportReader.Line> lines = List.of(
+                new AppointmentImportReader.Line(1, new AppointmentImportRow("Import Six", "IMP-0006", "Checkup", "2025-03-07"), null),
+                new AppointmentImportReader.Line(2, new AppointmentImportRow("Import Six", "IMP-0006", "y".repeat(300), "2025-03-08"), null));
+
+        // When
+        ImportSummary summary = importService.importAppointments(lines.iterator());
+
+        // Then
+        assertEquals(ImportChunkResult.Status.FAILED, summary.getChunks().get(0).getStatus());
+        assertTrue(patientRepository.findIdBySsn("IMP-0006").isEmpty());
+    }
+
+    @Test
+    void shouldRejectNullNdjsonLinesAsEmptyRecords() throws Exception {
+        // Given
+        String body = String.join("\n",
+                "{\"patientName\":\"Import Four\",\"ssn\":\"IMP-0004\",\"reason\":\"Checkup\",\"date\":\"2025-03-03\"}",
+                "null",
+                "{\"patientName\":\"Import Four\",\"ssn\":\"IMP-0004\",\"reason\":\"X-Ray\",\"date\":\"2025-03-04\"}");
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/appointments/import")
+                .contentType("application/x-ndjson")
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(2))
+                .andExpect(jsonPath("$.rejectedRows").value(1))
+                .andExpect(jsonPath("$.chunks[0].status").value("COMMITTED"))
+                .andExpect(jsonPath("$.chunks[0].error").value("Line 2: empty record"));
+    }
+
+    @Test
+    void shouldImportCsvWithHeader() throws Exception {
+        // Given
+        String body = "patientName,ssn,reason,date\n"
+                + "Csv Patient,IMP-0003,\"Checkup, annual\",2025-04-01\n"
+                + "Csv Patient,IMP-0003,Follow-up,2025-04-15\n";
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/appointments/import")
+                .contentType("text/csv")
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(2))
+                .andExpect(jsonPath("$.chunks.length()").value(1));
+
+        mockMvc.perform(get("/api/v1/appointments/search")
+                .param("keyword", "annual"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].reason").value("Checkup, annual"));
+    }
+
+    @Test
+    void shouldCreateOnePatientForParallelImportsWithNewSSN() throws Exception {
+        // Given: import jobs racing each other and a /bulk request for the same new SSN
+        // (through the services, so admission control does not turn the race into 429s)
+        int imports = 6;
+        String ssn = "RACE-IMP-01";
+        ExecutorService pool = Executors.newFixedThreadPool(imports + 1);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<ImportSummary>> summaries = new ArrayList<>();
+        try {
+            for (int i = 0; i < imports; i++) {
+                summaries.add(pool.submit(() -> {
+                    start.await();
+                    return importService.importAppointments(List.of(
+                        new AppointmentImportReader.Line(1, new AppointmentImportRow("Import Race", ssn, "Checkup", "2025-05-01"), null),
+                        new AppointmentImportReader.Line(2, new AppointmentImportRow("Import Race", ssn, "Follow-up", "2025-05-02"), null)
+                    ).iterator());
+                }));
+            }
+            Future<List<AppointmentDto>> bulk = pool.submit(() -> {
+                start.await();
+                return hospitalService.bulkCreateAppointments("Import Race", ssn,
+                    List.of("X-Ray"), List.of(LocalDate.of(2025, 5, 3)));
+            });
+            start.countDown();
+
+            // Then
+            for (Future<ImportSummary> summary : summaries) {
+                ImportSummary result = summary.get(30, TimeUnit.SECONDS);
+                assertEquals(2, result.getImportedRows(), "Import chunk failed: " + result.getChunks().get(0).getError());
+            }
+            assertEquals(1, bulk.get(30, TimeUnit.SECONDS).size());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, patientRepository.findBySsnIn(List.of(ssn)).size());
+        assertEquals(imports * 2 + 1,
+                patientRepository.findBySsnWithAppointments(ssn).orElseThrow().getAppointments().size());
+    }
+
+    @Test
+    void shouldPageSearchResultsWithKeysetCursor() throws Exception {
+        // Given
+        BulkAppointmentRequest request = new BulkAppointmentRequest(
+                Arrays.asList("Keyset scan", "Keyset scan", "Keyset scan"),
+                Arrays.asList(LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 2), LocalDate.of(2025, 5, 3)));
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", "Page Patient")
+                .param("ssn", "PAGE-0001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        String cursor = mockMvc.perform(get("/api/v1/appointments/search")
+                .param("keyword", "keyset")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists(AppointmentController.NEXT_CURSOR_HEADER))
+                .andReturn().getResponse().getHeader(AppointmentController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/api/v1/appointments/search")
+                .param("keyword", "keyset")
+                .param("afterId", cursor)
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].date").value("2025-05-03"))
+                .andExpect(header().doesNotExist(AppointmentController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void shouldRejectOversizedSearchPage() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/appointments/search")
+                .param("keyword", "Checkup")
+                .param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStreamSearchResultsAsJsonArray() throws Exception {
+        // Given
+        BulkAppointmentRequest request = new BulkAppointmentRequest(
+                Arrays.asList("Streamed consult", "Streamed consult"),
+                Arrays.asList(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 2)));
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", "Stream Patient")
+                .param("ssn", "STRM-0001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/v1/appointments/search/stream")
+                .param("keyword", "streamed"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].reason").value("Streamed consult"));
+    }
+
+    @Test
+    void shouldDeleteAppointmentsForManySSNs() throws Exception {
+        // Given
+        BulkAppointmentRequest request = new BulkAppointmentRequest(
+                Arrays.asList("Batch delete", "Batch delete"),
+                Arrays.asList(LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 2)));
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", "Batch Patient")
+                .param("ssn", "BDEL-0001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/appointments/delete-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new SsnBatchRequest(Arrays.asList("BDEL-0001", "BDEL-NONE")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted['BDEL-0001']").value(2))
+                .andExpect(jsonPath("$.notFound[0]").value("BDEL-NONE"))
+                .andExpect(jsonPath("$.totalDeleted").value(2));
+
+        mockMvc.perform(delete("/api/v1/appointments")
+                .param("ssn", "BDEL-0001"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(AppointmentController.DELETED_COUNT_HEADER, "0"));
+    }
+
+    @Test
+    void shouldReturnLatestAppointmentByDateNotInsertionOrder() throws Exception {
+        // Given
+        BulkAppointmentRequest request = new BulkAppointmentRequest(
+                Arrays.asList("Middle", "Latest", "Earliest"),
+                Arrays.asList(LocalDate.of(2025, 8, 15), LocalDate.of(2025, 9, 1), LocalDate.of(2025, 8, 1)));
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", "Latest Patient")
+                .param("ssn", "LAST-0001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/appointments/latest")
+                .param("ssn", "LAST-0001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason").value("Latest"))
+                .andExpect(jsonPath("$.date").value("2025-09-01"));
+    }
+
+    @Test
+    void shouldReturnLatestAppointmentsForManySSNs() throws Exception {
+        // Given
+        for (int patient = 1; patient <= 2; patient++) {
+            BulkAppointmentRequest request = new BulkAppointmentRequest(
+                    Arrays.asList("Earlier " + patient, "Latest " + patient, "Same day " + patient),
+                    Arrays.asList(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 9, patient), LocalDate.of(2025, 9, patient)));
+            mockMvc.perform(post("/api/v1/appointments/bulk")
+                    .param("patientName", "Ward Patient " + patient)
+                    .param("ssn", "WARD-000" + patient)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+        SsnBatchRequest request = new SsnBatchRequest(Arrays.asList("WARD-0002", "WARD-0001", "WARD-9999"));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/appointments/latest-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$['WARD-0001'].reason").value("Same day 1"))
+                .andExpect(jsonPath("$['WARD-0001'].date").value("2025-09-01"))
+                .andExpect(jsonPath("$['WARD-0002'].reason").value("Same day 2"))
+                .andExpect(jsonPath("$['WARD-9999']").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectMalformedBulkDate() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", "Date Patient")
+                .param("ssn", "DATE-0001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"reasons\":[\"Checkup\"],\"dates\":[\"2025-13-40\"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldPageAppointmentsByDateRange() throws Exception {
+        // Given
+        BulkAppointmentRequest request = new BulkAppointmentRequest(
+                Arrays.asList("Before", "Day one", "Day one again", "Day seven", "After"),
+                Arrays.asList(LocalDate.of(2031, 2, 28), LocalDate.of(2031, 3, 1), LocalDate.of(2031, 3, 1),
+                        LocalDate.of(2031, 3, 7), LocalDate.of(2031, 3, 8)));
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", "Range Patient")
+                .param("ssn", "RANGE-0001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        String cursor = mockMvc.perform(get("/api/v1/appointments")
+                .param("from", "2031-03-01")
+                .param("to", "2031-03-07")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].reason").value("Day one"))
+                .andExpect(jsonPath("$[1].reason").value("Day one again"))
+                .andReturn().getResponse().getHeader(AppointmentController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/api/v1/appointments?" + cursor)
+                .param("from", "2031-03-01")
+                .param("to", "2031-03-07")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].reason").value("Day seven"))
+                .andExpect(jsonPath("$[0].date").value("2031-03-07"))
+                .andExpect(header().doesNotExist(AppointmentController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void shouldRejectInvertedDateRange() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/appointments")
+                .param("from", "2031-03-07")
+                .param("to", "2031-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReportAppointmentsPerMonth() throws Exception {
+        // Given
+        BulkAppointmentRequest request = new BulkAppointmentRequest();
+        request.setReasons(Arrays.asList("Checkup", "X-Ray", "Checkup"));
+        request.setDates(Arrays.asList(LocalDate.of(2032, 5, 3), LocalDate.of(2032, 5, 20), LocalDate.of(2032, 6, 1)));
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", "Report Patient")
+                .param("ssn", "RPT-000001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/appointments/reports/dates")
+                .param("from", "2032-05-01")
+                .param("to", "2032-06-30")
+                .param("bucket", "month"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].date").value("2032-05-01"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[1].date").value("2032-06-01"))
+                .andExpect(jsonPath("$[1].count").value(1));
+    }
+
+    @Test
+    void shouldRejectInvalidReportParameters() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/appointments/reports/dates")
+                .param("from", "2032-06-30")
+                .param("to", "2032-05-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/appointments/reports/dates")
+                .param("from", "2032-05-01")
+                .param("to", "2032-06-30")
+                .param("bucket", "week"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/appointments/reports/reasons")
+                .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldAnswerUnchangedLatestWithNotModifiedUntilPatientChanges() throws Exception {
+        // Given
+        createAppointments("Etag Patient", "ETAG-0001", "Ward round", LocalDate.of(2036, 3, 1));
+        createAppointments("Other Patient", "ETAG-0002", "Ward round", LocalDate.of(2036, 3, 1));
+        MvcResult first = mockMvc.perform(get("/api/v1/appointments/latest").param("ssn", "ETAG-0001"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        assertEquals(List.of(etag), first.getResponse().getHeaders("ETag"));
+        double queriesBefore = latestQueries();
+
+        // When & Then: unchanged, and a change to another patient does not matter
+        createAppointments("Other Patient", "ETAG-0002", "Ward round", LocalDate.of(2036, 3, 2));
+        mockMvc.perform(get("/api/v1/appointments/latest").param("ssn", "ETAG-0001").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        assertEquals(queriesBefore, latestQueries(), "304 without a query");
+
+        createAppointments("Etag Patient", "ETAG-0001", "Discharge", LocalDate.of(2036, 3, 5));
+        MvcResult changed = mockMvc.perform(get("/api/v1/appointments/latest").param("ssn", "ETAG-0001")
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reason").value("Discharge"))
+                .andReturn();
+        assertNotEquals(etag, changed.getResponse().getHeader("ETag"));
+        assertEquals(1, changed.getResponse().getHeaders("ETag").size());
+    }
+
+    @Test
+    void shouldAnswerUnchangedSearchWithNotModifiedUntilAppointmentsChange() throws Exception {
+        // Given
+        createAppointments("Etag Search", "ETAG-0003", "Etag lookup", LocalDate.of(2036, 4, 1));
+        String etag = mockMvc.perform(get("/api/v1/appointments/search").param("keyword", "etag lookup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/appointments/search").param("keyword", "etag lookup").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(delete("/api/v1/appointments").param("ssn", "ETAG-0003"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/appointments/search").param("keyword", "etag lookup").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    private void createAppointments(String patientName, String ssn, String reason, LocalDate date) throws Exception {
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", patientName)
+                .param("ssn", ssn)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkAppointmentRequest(List.of(reason), List.of(date)))))
+                .andExpect(status().isCreated());
+    }
+
+    private double latestQueries() {
+        Timer timer = meterRegistry.find("hospital.db.query")
+                .tag("query", "AppointmentRepository.findLatestByPatientId").timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,112 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the bounded background job queue.
+ */
+@ExtendWith(MockitoExtension.class)
+class AppointmentJobServiceTest {
+
+    @Mock
+    private AppointmentImportService importService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AppointmentJobService jobService;
+
+    private final List<AppointmentImportRow> rows =
+        List.of(new AppointmentImportRow("John Doe", "123-45-6789", "Checkup", "2025-01-15"));
+
+    @BeforeEach
+    void setUp() {
+        jobService = new AppointmentJobService(importService, meterRegistry, 1, 1, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.stop();
+    }
+
+    @Test
+    void shouldRejectJobsWhenQueueIsFull() throws Exception {
+        // Given
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(importService.importAppointments(any(), any())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return new ImportSummary();
+        });
+
+        // When
+        AppointmentJob first = jobService.submit(rows);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        AppointmentJob second = jobService.submit(rows);
+
+        // Then
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit(rows));
+        assertEquals(AppointmentJob.Status.RUNNING, first.getStatus());
+        assertEquals(AppointmentJob.Status.QUEUED, second.getStatus());
+        assertEquals(1.0, meterRegistry.get("hospital.jobs.rejected").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void shouldReportFailedJob() throws Exception {
+        // Given
+        when(importService.importAppointments(any(), any())).thenThrow(new IllegalStateException("database down"));
+
+        // When
+        AppointmentJob job = jobService.submit(rows);
+        for (int i = 0; i < 100 && !job.isDone(); i++) {
+            Thread.sleep(20);
+        }
+
+        // Then
+        assertEquals(AppointmentJob.Status.FAILED, job.getStatus());
+        assertEquals("database down", job.getError());
+        assertSame(job, jobService.findJob(job.getId()).orElseThrow());
+    }
+
+    @Test
+    void shouldKeepRunningJobsPastRetention() throws Exception {
+        // Given
+        jobService.stop();
+        jobService = new AppointmentJobService(importService, meterRegistry, 1, 1, Duration.ofMillis(300));
+        CountDownLatch release = new CountDownLatch(1);
+        when(importService.importAppointments(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return new ImportSummary();
+        });
+
+        // When
+        AppointmentJob job = jobService.submit(rows);
+        Thread.sleep(600);
+
+        // Then: still pollable while running, forgotten once done and past retention
+        assertTrue(jobService.findJob(job.getId()).isPresent());
+        release.countDown();
+        for (int i = 0; i < 100 && !job.isDone(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(jobService.findJob(job.getId()).isPresent());
+        Thread.sleep(600);
+        assertTrue(jobService.findJob(job.getId()).isEmpty());
+    }
+}
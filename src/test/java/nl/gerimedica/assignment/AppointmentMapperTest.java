@@ -0,0 +1,66 @@
+package nl.gerimedica.assignment;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AppointmentMapper.
+ */
+class AppointmentMapperTest {
+
+    private final AppointmentMapper mapper = new AppointmentMapper();
+    /** Configured like Spring Boot's auto-configured ObjectMapper. */
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+
+    @Test
+    void shouldMapEntitiesInOrder() {
+        // Given
+        Patient patient = new Patient("John Doe", "123-45-6789");
+        ReflectionTestUtils.setField(patient, "id", 3L);
+        Appointment first = new Appointment("Checkup", LocalDate.of(2025, 1, 15), patient);
+        Appointment second = new Appointment("X-Ray", LocalDate.of(2025, 2, 1), patient);
+        ReflectionTestUtils.setField(first, "id", 10L);
+        ReflectionTestUtils.setField(second, "id", 11L);
+
+        // When
+        List<AppointmentDto> result = mapper.toDtoList(Arrays.asList(first, second));
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(10L, result.get(0).getId());
+        assertEquals("X-Ray", result.get(1).getReason());
+        assertEquals(3L, result.get(1).getPatientId());
+    }
+
+    @Test
+    void shouldWriteSameJsonAsObjectMapper() throws Exception {
+        List<AppointmentDto> dtos = List.of(
+            new AppointmentDto(1L, "Checkup \"annual\"", LocalDate.of(2025, 3, 9), 2L),
+            new AppointmentDto(2L, "Ré-évaluation", LocalDate.of(987, 12, 31), null),
+            new AppointmentDto(3L, null, null, 4L));
+
+        for (AppointmentDto dto : dtos) {
+            // When
+            StringWriter out = new StringWriter();
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                mapper.writeJson(dto, json);
+            }
+
+            // Then
+            assertEquals(objectMapper.writeValueAsString(dto), out.toString());
+        }
+    }
+}
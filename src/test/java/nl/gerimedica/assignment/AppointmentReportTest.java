@@ -0,0 +1,150 @@
+package nl.gerimedica.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the in-memory rollup reports exactly what the GROUP BY queries return, also after
+ * creates and deletes. Uses a private database so other test contexts sharing "testdb" cannot
+ * make the rollup stale.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:report-test;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AppointmentReportTest {
+
+    private static final String[] REASONS = {"Checkup", "Follow-up", "X-Ray", "MRI scan", "Blood test"};
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 12, 31);
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentRollup rollup;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentMapper appointmentMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    void createCorpus() {
+        createPatients(0, 30);
+    }
+
+    @Test
+    void shouldMatchDatabaseAfterCreatesAndDeletes() throws Exception {
+        // Given
+        assertTrue(rollup.isReady(), "Rollup should be loaded before the first request");
+        assertMatchesDatabase();
+
+        // When
+        hospitalService.deleteAppointmentsBySSN("RPT-3");
+        hospitalService.deleteAppointmentsBySSNs(List.of("RPT-4", "RPT-5", "RPT-unknown"));
+        createPatients(30, 35);
+        hospitalService.bulkCreateAppointments("Report Patient 6", "RPT-6",
+            List.of("Checkup"), List.of(LocalDate.of(2025, 7, 1)));
+
+        // Then
+        assertTrue(rollup.isReady(), "Deletes carry their counts, so the rollup stays usable");
+        assertMatchesDatabase();
+    }
+
+    @Test
+    void shouldRecoverWhenADeleteOvertakesTheCreateItRemoved() throws Exception {
+        // Given: rows committed, but their created event not applied yet
+        Long patientId = hospitalService.bulkCreateAppointments("Report Race", "RPT-RACE",
+            List.of("Race scan"), List.of(LocalDate.of(2025, 8, 1))).get(0).getPatientId();
+        Patient patient = patientRepository.findById(patientId).orElseThrow();
+        List<AppointmentDto> lateCreate = appointmentMapper.toDtoList(appointmentRepository.saveAll(List.of(
+            new Appointment("Race scan", LocalDate.of(2025, 8, 2), patient),
+            new Appointment("Race follow-up", LocalDate.of(2025, 8, 2), patient))));
+
+        // When: the delete's event is applied first, the create's afterwards
+        hospitalService.deleteAppointmentsBySSN("RPT-RACE");
+        rollup.onAppointmentsCreated(new AppointmentsCreatedEvent(lateCreate));
+
+        // Then: signed reason and day counts add up, the patient count is repaired by a rebuild
+        assertSameJson(appointmentRepository.countByReason(Limit.unlimited()), rollup.topReasons(Integer.MAX_VALUE));
+        assertSameJson(appointmentRepository.countByDate(FROM, TO), rollup.countsByDate(FROM, TO));
+        assertTrue(rollup.verify(), "Patient counts diverged, so the rollup should rebuild");
+        assertMatchesDatabase();
+        assertFalse(rollup.verify());
+    }
+
+    @Test
+    void shouldRebuildAfterADeleteWithoutCounts() throws Exception {
+        // Given
+        rollup.onAppointmentsDeleted(new AppointmentsDeletedEvent(List.of(-1L), List.of("RPT-none")));
+        assertFalse(rollup.isReady());
+
+        // When
+        boolean rebuilt = rollup.verify();
+
+        // Then
+        assertTrue(rebuilt);
+        assertTrue(rollup.isReady(), "Reports use the rollup again after the rebuild");
+        assertMatchesDatabase();
+    }
+
+    @Test
+    void shouldRankTopReasonsByCountThenReason() {
+        // When
+        List<ReasonCount> top = rollup.topReasons(2);
+
+        // Then
+        assertEquals(2, top.size());
+        assertTrue(top.get(0).getCount() > top.get(1).getCount()
+            || (top.get(0).getCount() == top.get(1).getCount()
+                && top.get(0).getReason().compareTo(top.get(1).getReason()) < 0));
+    }
+
+    private void assertMatchesDatabase() throws Exception {
+        assertSameJson(appointmentRepository.countByReason(Limit.unlimited()), rollup.topReasons(Integer.MAX_VALUE));
+        assertSameJson(appointmentRepository.countByReason(Limit.of(3)), rollup.topReasons(3));
+        assertSameJson(appointmentRepository.countByDate(FROM, TO), rollup.countsByDate(FROM, TO));
+        assertSameJson(appointmentRepository.countByDate(LocalDate.of(2025, 3, 10), LocalDate.of(2025, 4, 5)),
+            rollup.countsByDate(LocalDate.of(2025, 3, 10), LocalDate.of(2025, 4, 5)));
+        assertSameJson(appointmentRepository.countByPatient(Limit.unlimited()), rollup.topPatients(Integer.MAX_VALUE));
+        assertSameJson(appointmentRepository.countByPatient(Limit.of(5)), rollup.topPatients(5));
+        assertSameJson(appointmentRepository.countPatientsByAppointments(), rollup.patientHistogram());
+    }
+
+    private void assertSameJson(Object expected, Object actual) throws Exception {
+        assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual));
+    }
+
+    private void createPatients(int first, int last) {
+        Random random = new Random(first);
+        for (int patient = first; patient < last; patient++) {
+            List<String> reasons = new ArrayList<>();
+            List<LocalDate> dates = new ArrayList<>();
+            for (int i = 0, n = 1 + random.nextInt(12); i < n; i++) {
+                reasons.add(REASONS[random.nextInt(REASONS.length)]);
+                dates.add(FROM.plusDays(random.nextInt(365)));
+            }
+            hospitalService.bulkCreateAppointments("Report Patient " + patient, "RPT-" + patient, reasons, dates);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs bulk creates through the write-behind buffer against a private database.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:write-behind-test;DB_CLOSE_DELAY=-1",
+    "hospital.write-behind.enabled=true",
+    "hospital.write-behind.max-delay=20ms"
+})
+@ActiveProfiles("test")
+class AppointmentWriteBufferTest {
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Autowired
+    private AppointmentWriteBuffer writeBuffer;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentMapper appointmentMapper;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldGroupParallelSmallRequestsIntoFewerCommits() throws Exception {
+        // Given
+        int requests = 40;
+        DistributionSummary batches = meterRegistry.get("hospital.write-behind.batch.rows").summary();
+        long commitsBefore = batches.count();
+        long rowsBefore = appointmentRepository.count();
+        ExecutorService pool = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<AppointmentDto>>> results = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < requests; i++) {
+            String ssn = "WB-" + i;
+            results.add(pool.submit(() -> {
+                start.await();
+                return hospitalService.bulkCreateAppointments("Buffered Patient", ssn,
+                    List.of("Checkup", "X-Ray", "Follow-up"),
+                    List.of(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 4, 2), LocalDate.of(2025, 4, 3)));
+            }));
+        }
+        start.countDown();
+        List<AppointmentDto> created = new ArrayList<>();
+        for (Future<List<AppointmentDto>> result : results) {
+            created.addAll(result.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        // Then
+        assertEquals(requests * 3, created.size());
+        assertTrue(created.stream().allMatch(dto -> dto.getId() != null), "Rows are committed when the call returns");
+        assertEquals(rowsBefore + requests * 3, appointmentRepository.count());
+        assertTrue(batches.count() - commitsBefore < requests,
+            "Expected fewer group commits than requests, got " + (batches.count() - commitsBefore));
+    }
+
+    @Test
+    void shouldFailOnlyTheBadRequestOfAGroup() throws Exception {
+        // Given
+        Long patientId = hospitalService.bulkCreateAppointments("Good Patient", "WB-GOOD",
+            List.of("Checkup"), List.of(LocalDate.of(2025, 5, 1))).get(0).getPatientId();
+
+        // When
+        CompletableFuture<List<AppointmentDto>> bad = writeBuffer.submit(-1L,
+            List.of("Checkup"), List.of(LocalDate.of(2025, 5, 2)));
+        CompletableFuture<List<AppointmentDto>> good = writeBuffer.submit(patientId,
+            List.of("X-Ray"), List.of(LocalDate.of(2025, 5, 3)));
+
+        // Then
+        assertEquals("X-Ray", good.get(30, TimeUnit.SECONDS).get(0).getReason());
+        assertThrows(ExecutionException.class, () -> bad.get(30, TimeUnit.SECONDS));
+        assertEquals(2, appointmentRepository.findByPatientId(patientId).size());
+    }
+
+    @Test
+    void shouldKeepFlushingAfterAnUnexpectedError() throws Exception {
+        // Given: a write whose rows blow up with an Error in the middle of the flush
+        List<String> exploding = new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                throw new AssertionError("boom");
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+        Long patientId = hospitalService.bulkCreateAppointments("Sturdy Patient", "WB-STURDY",
+            List.of("Checkup"), List.of(LocalDate.of(2025, 6, 1))).get(0).getPatientId();
+
+        // When
+        CompletableFuture<List<AppointmentDto>> failed = writeBuffer.submit(patientId,
+            exploding, List.of(LocalDate.of(2025, 6, 2)));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(30, TimeUnit.SECONDS));
+
+        // Then: the flusher is still alive for later requests
+        assertInstanceOf(AssertionError.class, error.getCause());
+        assertEquals(1, writeBuffer.submit(patientId, List.of("X-Ray"), List.of(LocalDate.of(2025, 6, 3)))
+            .get(30, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    void shouldCancelOnlyWritesTheFlusherHasNotTaken() throws Exception {
+        // Given: the flusher is stuck inside the first write's commit
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> slow = new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                committing.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "Slow checkup";
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+        Long patientId = hospitalService.bulkCreateAppointments("Cancel Patient", "WB-CANCEL",
+            List.of("Checkup"), List.of(LocalDate.of(2025, 7, 1))).get(0).getPatientId();
+        CompletableFuture<List<AppointmentDto>> taken = writeBuffer.submit(patientId, slow,
+            List.of(LocalDate.of(2025, 7, 2)));
+        assertTrue(committing.await(30, TimeUnit.SECONDS));
+        CompletableFuture<List<AppointmentDto>> queued = writeBuffer.submit(patientId, List.of("Cancelled X-Ray"),
+            List.of(LocalDate.of(2025, 7, 3)));
+
+        // When
+        boolean queuedCancelled = writeBuffer.cancel(queued);
+        boolean takenCancelled = writeBuffer.cancel(taken);
+        release.countDown();
+
+        // Then: the queued write fails and is never committed; the taken one still commits
+        assertTrue(queuedCancelled);
+        assertFalse(takenCancelled);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> queued.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1, taken.get(30, TimeUnit.SECONDS).size());
+        assertEquals(1, writeBuffer.submit(patientId, List.of("Flush marker"), List.of(LocalDate.of(2025, 7, 4)))
+            .get(30, TimeUnit.SECONDS).size());
+        assertTrue(appointmentRepository.findAll().stream()
+            .noneMatch(appointment -> "Cancelled X-Ray".equals(appointment.getReason())));
+    }
+
+    @Test
+    void shouldRejectWritesOnceStopped() throws Exception {
+        // Given
+        AppointmentWriteBuffer stopped = new AppointmentWriteBuffer(patientRepository, appointmentRepository,
+            appointmentMapper, events, transactionManager, meterRegistry, true, 500, Duration.ofMillis(5), 10,
+            Duration.ofSeconds(30));
+        stopped.start();
+
+        // When
+        stopped.stop();
+
+        // Then
+        assertThrows(RejectedExecutionException.class,
+            () -> stopped.submit(1L, List.of("Checkup"), List.of(LocalDate.of(2025, 6, 4))));
+    }
+}
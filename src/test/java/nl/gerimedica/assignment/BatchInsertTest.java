@@ -0,0 +1,70 @@
+package nl.gerimedica.assignment;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a bulk create goes out as JDBC batches: Hibernate prepares the appointment INSERT
+ * at most once per {@code hibernate.jdbc.batch_size} rows (it reuses the statement across batches)
+ * and calls the sequence once per {@code allocationSize} ids, not once per appointment.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:batch-insert-test;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "nl.gerimedica.assignment.BatchInsertTest$CountingInspector"
+})
+@ActiveProfiles("test")
+class BatchInsertTest {
+
+    /** Keeps the SQL Hibernate prepares on the test thread; background loaders are not counted. */
+    public static class CountingInspector implements StatementInspector {
+        private static final ThreadLocal<List<String>> PREPARED = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public String inspect(String sql) {
+            PREPARED.get().add(sql.toLowerCase(Locale.ROOT));
+            return sql;
+        }
+    }
+
+    private static final int ROWS = 120;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Test
+    void shouldInsertAppointmentsInJdbcBatches() {
+        // Given
+        List<String> reasons = new ArrayList<>();
+        List<LocalDate> dates = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            reasons.add("Batched checkup " + i);
+            dates.add(LocalDate.of(2025, 9, 1).plusDays(i % 30));
+        }
+        CountingInspector.PREPARED.get().clear();
+
+        // When
+        List<AppointmentDto> created = hospitalService.bulkCreateAppointments("Batch Patient", "BATCH-0001",
+            reasons, dates);
+
+        // Then
+        List<String> prepared = CountingInspector.PREPARED.get();
+        long inserts = prepared.stream().filter(sql -> sql.startsWith("insert into appointment")).count();
+        long sequenceCalls = prepared.stream().filter(sql -> sql.contains("appointment_seq")).count();
+        assertEquals(ROWS, created.size());
+        int batches = (ROWS + BATCH_SIZE - 1) / BATCH_SIZE;
+        assertTrue(inserts >= 1 && inserts <= batches, "At most one prepared INSERT per batch: " + prepared);
+        assertEquals(batches, sequenceCalls, "One sequence call per id block: " + prepared);
+    }
+}
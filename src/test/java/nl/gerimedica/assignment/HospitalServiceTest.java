@@ -3,12 +3,19 @@ package nl.gerimedica.assignment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,53 +34,54 @@ class HospitalServiceTest {
     @Mock
     private AppointmentRepository appointmentRepository;
 
+    @Mock
+    private ReasonSearchIndex reasonIndex;
+
+    @Mock
+    private PatientCache patientCache;
+
+    @Mock
+    private PatientResolver patientResolver;
+
+    @Spy
+    private AppointmentMapper appointmentMapper = new AppointmentMapper();
+
+    @Mock
+    private AppointmentRollup appointmentRollup;
+
+    @Mock
+    private AppointmentWriteBuffer writeBuffer;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
     @InjectMocks
     private HospitalService hospitalService;
 
     private Patient testPatient;
     private Appointment testAppointment;
+    private AppointmentDto testDto;
 
     @BeforeEach
     void setUp() {
         // Create test data
         testPatient = new Patient("John Doe", "123-45-6789");
+        ReflectionTestUtils.setField(testPatient, "id", 1L);
         
-        testAppointment = new Appointment("Checkup", "2025-01-15", testPatient);
-    }
-
-    @Test
-    void shouldCreateNewPatientAndAppointments() {
-        // Given
-        String patientName = "Jane Smith";
-        String ssn = "987-65-4321";
-        List<String> reasons = Arrays.asList("Checkup");
-        List<String> dates = Arrays.asList("2025-01-15");
-
-        Patient newPatient = new Patient(patientName, ssn);
-
-        when(patientRepository.findBySsn(ssn)).thenReturn(Optional.empty());
-        when(patientRepository.save(any(Patient.class))).thenReturn(newPatient);
-        when(appointmentRepository.saveAll(any())).thenReturn(Arrays.asList(testAppointment));
-
-        // When
-        List<AppointmentDto> result = hospitalService.bulkCreateAppointments(patientName, ssn, reasons, dates);
-
-        // Then
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        verify(patientRepository).findBySsn(ssn);
-        verify(patientRepository).save(any(Patient.class));
+        testAppointment = new Appointment("Checkup", LocalDate.of(2025, 1, 15), testPatient);
+        testDto = new AppointmentDto(7L, "Checkup", LocalDate.of(2025, 1, 15), 1L);
     }
 
     @Test
-    void shouldUseExistingPatient() {
+    void shouldCreateAppointmentsForResolvedPatient() {
         // Given
         String patientName = "John Doe";
         String ssn = "123-45-6789";
         List<String> reasons = Arrays.asList("Checkup");
-        List<String> dates = Arrays.asList("2025-01-15");
+        List<LocalDate> dates = Arrays.asList(LocalDate.of(2025, 1, 15));
 
-        when(patientRepository.findBySsn(ssn)).thenReturn(Optional.of(testPatient));
+        when(patientResolver.resolvePatientId(patientName, ssn)).thenReturn(1L);
+        when(patientRepository.getReferenceById(1L)).thenReturn(testPatient);
         when(appointmentRepository.saveAll(any())).thenReturn(Arrays.asList(testAppointment));
 
         // When
@@ -82,8 +90,9 @@ class HospitalServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(patientRepository).findBySsn(ssn);
+        assertEquals(1L, result.get(0).getPatientId());
         verify(patientRepository, never()).save(any(Patient.class));
+        verify(events).publishEvent(any(AppointmentsCreatedEvent.class));
     }
 
     @Test
@@ -92,7 +101,7 @@ class HospitalServiceTest {
         String patientName = "John Doe";
         String ssn = "123-45-6789";
         List<String> reasons = Arrays.asList();
-        List<String> dates = Arrays.asList();
+        List<LocalDate> dates = Arrays.asList();
 
         // When & Then
         assertThrows(IllegalArgumentException.class, () -> 
@@ -130,77 +139,163 @@ class HospitalServiceTest {
     void shouldFindAppointmentsByReason() {
         // Given
         String keyword = "Checkup";
-        List<Appointment> appointments = Arrays.asList(testAppointment);
-        when(appointmentRepository.findByReasonContainingIgnoreCase(keyword)).thenReturn(appointments);
+        List<AppointmentDto> appointments = Arrays.asList(testDto);
+        when(appointmentRepository.findPageByReason(keyword, 0L, Limit.of(10)))
+            .thenReturn(appointments);
 
         // When
-        List<AppointmentDto> result = hospitalService.getAppointmentsByReason(keyword);
+        List<AppointmentDto> result = hospitalService.getAppointmentsByReason(keyword, null, 10);
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals(testAppointment.getReason(), result.get(0).getReason());
+        assertEquals(testDto.getReason(), result.get(0).getReason());
+    }
+
+    @Test
+    void shouldFindAppointmentsByReasonThroughIndexWhenReady() {
+        // Given
+        String keyword = "Check";
+        List<Long> ids = Arrays.asList(7L);
+        when(reasonIndex.isReady()).thenReturn(true);
+        when(reasonIndex.search(keyword, 5L, 10)).thenReturn(ids);
+        when(appointmentRepository.findDtosByIdIn(ids)).thenReturn(Arrays.asList(testDto));
+
+        // When
+        List<AppointmentDto> result = hospitalService.getAppointmentsByReason(keyword, 5L, 10);
+
+        // Then
+        assertEquals(1, result.size());
+        verify(appointmentRepository, never())
+            .findPageByReason(any(), any(), any());
     }
 
     @Test
     void shouldDeleteAppointmentsWhenPatientExists() {
         // Given
         String ssn = "123-45-6789";
-        List<Appointment> appointments = Arrays.asList(testAppointment);
-        when(patientRepository.findBySsn(ssn)).thenReturn(Optional.of(testPatient));
-        when(appointmentRepository.findByPatientSsn(ssn)).thenReturn(appointments);
+        when(patientCache.findPatientId(ssn)).thenReturn(Optional.of(testPatient.getId()));
+        when(appointmentRepository.deleteByPatientId(testPatient.getId())).thenReturn(3);
 
         // When
-        boolean result = hospitalService.deleteAppointmentsBySSN(ssn);
+        Optional<Integer> result = hospitalService.deleteAppointmentsBySSN(ssn);
 
         // Then
-        assertTrue(result);
-        verify(appointmentRepository).findByPatientSsn(ssn);
-        verify(appointmentRepository).deleteAll(appointments);
+        assertEquals(Optional.of(3), result);
+        verify(appointmentRepository).deleteByPatientId(testPatient.getId());
+        verify(appointmentRepository, never()).findByPatientSsn(any());
+        verify(events).publishEvent(any(AppointmentsDeletedEvent.class));
+    }
+
+    @Test
+    void shouldPublishRemovedCountsWhenRollupIsEnabled() {
+        // Given
+        String ssn = "123-45-6789";
+        List<AppointmentGroupCount> groups = List.of(
+            new AppointmentGroupCount("Checkup", LocalDate.of(2025, 2, 1), 2),
+            new AppointmentGroupCount("X-Ray", LocalDate.of(2025, 3, 1), 1));
+        when(appointmentRollup.isEnabled()).thenReturn(true);
+        when(patientCache.findPatientId(ssn)).thenReturn(Optional.of(testPatient.getId()));
+        when(appointmentRepository.countGroupsByPatientIdIn(List.of(testPatient.getId()))).thenReturn(groups);
+        when(appointmentRepository.deleteByPatientId(testPatient.getId())).thenReturn(3);
+
+        // When
+        hospitalService.deleteAppointmentsBySSN(ssn);
+
+        // Then
+        ArgumentCaptor<AppointmentsDeletedEvent> event = ArgumentCaptor.forClass(AppointmentsDeletedEvent.class);
+        verify(events).publishEvent(event.capture());
+        assertEquals(2, event.getValue().getRemovedGroups().size());
+    }
+
+    @Test
+    void shouldReturnLatestAppointmentsInRequestOrder() {
+        // Given
+        List<String> ssns = List.of("222-22-2222", "999-99-9999", "111-11-1111");
+        when(appointmentRepository.findLatestBySsnIn(ssns)).thenReturn(List.of(
+            new PatientLatestAppointment("111-11-1111", 1L, "Checkup", LocalDate.of(2025, 2, 1), 1L),
+            new PatientLatestAppointment("222-22-2222", 2L, "X-Ray", LocalDate.of(2025, 3, 1), 2L)));
+
+        // When
+        Map<String, AppointmentDto> result = hospitalService.findLatestAppointmentsBySSNs(ssns);
+
+        // Then
+        assertEquals(List.of("222-22-2222", "111-11-1111"), List.copyOf(result.keySet()));
+        assertEquals("X-Ray", result.get("222-22-2222").getReason());
+        verify(patientCache, never()).findPatientId(any());
     }
 
     @Test
     void shouldReturnFalseWhenPatientNotFoundForDeletion() {
         // Given
         String ssn = "999-99-9999";
-        when(patientRepository.findBySsn(ssn)).thenReturn(Optional.empty());
+        when(patientCache.findPatientId(ssn)).thenReturn(Optional.empty());
 
         // When
-        boolean result = hospitalService.deleteAppointmentsBySSN(ssn);
+        Optional<Integer> result = hospitalService.deleteAppointmentsBySSN(ssn);
 
         // Then
-        assertFalse(result);
-        verify(appointmentRepository, never()).deleteAll(any());
+        assertFalse(result.isPresent());
+        verify(appointmentRepository, never()).deleteByPatientId(any());
+    }
+
+    @Test
+    void shouldDeleteAppointmentsForKnownSSNsInBatch() {
+        // Given
+        List<String> ssns = Arrays.asList("123-45-6789", "999-99-9999");
+        when(patientRepository.findBySsnIn(ssns)).thenReturn(Arrays.asList(testPatient));
+        when(appointmentRepository.deleteByPatientId(testPatient.getId())).thenReturn(2);
+
+        // When
+        Map<String, Integer> result = hospitalService.deleteAppointmentsBySSNs(ssns);
+
+        // Then
+        assertEquals(Map.of("123-45-6789", 2), result);
     }
 
     @Test
     void shouldFindLatestAppointment() {
         // Given
         String ssn = "123-45-6789";
-        Appointment olderAppointment = new Appointment("Old", "2025-01-10", testPatient);
-        testPatient.setAppointments(Arrays.asList(testAppointment, olderAppointment));
-        
-        when(patientRepository.findBySsnWithAppointments(ssn)).thenReturn(Optional.of(testPatient));
+        when(patientCache.findPatientId(ssn)).thenReturn(Optional.of(1L));
+        when(appointmentRepository.findLatestByPatientId(1L))
+            .thenReturn(Optional.of(testDto));
 
         // When
         Optional<AppointmentDto> result = hospitalService.findLatestAppointmentBySSN(ssn);
 
         // Then
         assertTrue(result.isPresent());
-        assertEquals(testAppointment.getId(), result.get().getId());
+        assertEquals(testDto.getId(), result.get().getId());
+        assertEquals(testDto.getDate(), result.get().getDate());
+        verify(patientRepository, never()).findBySsnWithAppointments(any());
     }
 
     @Test
     void shouldReturnEmptyWhenNoAppointments() {
         // Given
         String ssn = "123-45-6789";
-        testPatient.setAppointments(Arrays.asList());
-        when(patientRepository.findBySsnWithAppointments(ssn)).thenReturn(Optional.of(testPatient));
+        when(patientCache.findPatientId(ssn)).thenReturn(Optional.of(1L));
+        when(appointmentRepository.findLatestByPatientId(1L)).thenReturn(Optional.empty());
+
+        // When
+        Optional<AppointmentDto> result = hospitalService.findLatestAppointmentBySSN(ssn);
+
+        // Then
+        assertFalse(result.isPresent());
+    }
+
+    @Test
+    void shouldNotQueryAppointmentsForUnknownSSN() {
+        // Given
+        String ssn = "999-99-9999";
+        when(patientCache.findPatientId(ssn)).thenReturn(Optional.empty());
 
         // When
         Optional<AppointmentDto> result = hospitalService.findLatestAppointmentBySSN(ssn);
 
         // Then
         assertFalse(result.isPresent());
+        verify(appointmentRepository, never()).findLatestByPatientId(any());
     }
 }
@@ -0,0 +1,86 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the request phase, query and Prometheus metrics.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:latency;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class LatencyMetricsIntegrationTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Built with the servlet filters, which record {@code http.server.requests}. */
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldBreakRequestsDownIntoPhases() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/v1/appointments/bulk")
+                .param("patientName", "Metric Patient")
+                .param("ssn", "METR-0001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"reasons\":[\"Metered visit\",\"Metered visit\"],\"dates\":[\"2025-04-01\",\"2025-04-02\"]}"))
+                .andExpect(status().isCreated());
+
+        // When
+        mockMvc.perform(get("/api/v1/appointments/search").param("keyword", "metered"))
+                .andExpect(status().isOk());
+        MvcResult streamed = mockMvc.perform(get("/api/v1/appointments/search/stream").param("keyword", "metered"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(streamed)).andExpect(status().isOk());
+
+        // Then
+        assertTrue(phase("/api/v1/appointments/bulk", "mapping").totalTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(phase("/api/v1/appointments/bulk", "db").totalTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(phase("/api/v1/appointments/search", "serialization").totalTime(TimeUnit.NANOSECONDS) > 0);
+        assertEquals(1, phase("/api/v1/appointments/search/stream", "db").count());
+        assertEquals(2.0, meterRegistry.get("hospital.request.rows")
+                .tag("uri", "/api/v1/appointments/search/stream").summary().totalAmount());
+        assertTrue(meterRegistry.get("hospital.db.query")
+                .tag("query", "AppointmentRepository.saveAll").timer().count() > 0);
+    }
+
+    @Test
+    void shouldExposeHistogramsForPrometheus() throws Exception {
+        // Given
+        mockMvc.perform(get("/api/v1/appointments/latest").param("ssn", "METR-9999"))
+                .andExpect(status().isNotFound());
+
+        // When
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket"));
+        assertTrue(scrape.contains("hospital_request_phase_seconds_bucket"));
+        assertTrue(scrape.contains("hospital_db_query_seconds_bucket"));
+    }
+
+    private Timer phase(String uri, String phase) {
+        return meterRegistry.get("hospital.request.phase").tag("uri", uri).tag("phase", phase).timer();
+    }
+}
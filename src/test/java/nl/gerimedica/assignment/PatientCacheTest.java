@@ -0,0 +1,100 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the SSN to patient id cache.
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientCacheTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PatientCache patientCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        patientCache = new PatientCache(patientRepository, meterRegistry,
+            100, Duration.ofMinutes(10), 100, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void shouldLoadKnownSSNOnce() {
+        // Given
+        when(patientRepository.findIdBySsn("123-45-6789")).thenReturn(Optional.of(1L));
+
+        // When
+        patientCache.findPatientId("123-45-6789");
+        Optional<Long> result = patientCache.findPatientId("123-45-6789");
+
+        // Then
+        assertEquals(Optional.of(1L), result);
+        verify(patientRepository, times(1)).findIdBySsn("123-45-6789");
+    }
+
+    @Test
+    void shouldRememberUnknownSSNUntilPatientIsCreated() {
+        // Given
+        when(patientRepository.findIdBySsn("999-99-9999")).thenReturn(Optional.empty());
+
+        // When
+        patientCache.findPatientId("999-99-9999");
+        Optional<Long> beforeCreate = patientCache.findPatientId("999-99-9999");
+        patientCache.onPatientCreated(new PatientCreatedEvent(7L, "999-99-9999"));
+        Optional<Long> afterCreate = patientCache.findPatientId("999-99-9999");
+
+        // Then
+        assertFalse(beforeCreate.isPresent());
+        assertEquals(Optional.of(7L), afterCreate);
+        verify(patientRepository, times(1)).findIdBySsn("999-99-9999");
+    }
+
+    @Test
+    void shouldReloadAfterAppointmentsDeleted() {
+        // Given
+        when(patientRepository.findIdBySsn("123-45-6789")).thenReturn(Optional.of(1L));
+        patientCache.findPatientId("123-45-6789");
+
+        // When
+        patientCache.onAppointmentsDeleted(new AppointmentsDeletedEvent(List.of(1L), List.of("123-45-6789")));
+        patientCache.findPatientId("123-45-6789");
+
+        // Then
+        verify(patientRepository, times(2)).findIdBySsn("123-45-6789");
+    }
+
+    @Test
+    void shouldNotCacheMissReadBeforeConcurrentCreate() {
+        // Given: the patient is committed (and its event handled) while the lookup's query is in flight
+        when(patientRepository.findIdBySsn("555-55-5555")).thenAnswer(invocation -> {
+            patientCache.onPatientCreated(new PatientCreatedEvent(9L, "555-55-5555"));
+            return Optional.empty();
+        });
+
+        // When
+        Optional<Long> racingLookup = patientCache.findPatientId("555-55-5555");
+        Optional<Long> nextLookup = patientCache.findPatientId("555-55-5555");
+
+        // Then: the stale miss was not cached, so it cannot outlive the positive entry
+        assertFalse(racingLookup.isPresent());
+        assertEquals(Optional.of(9L), nextLookup);
+        assertEquals(0.0, meterRegistry.get("cache.size").tag("cache", "patient.ssn.unknown").gauge().value());
+        verify(patientRepository, times(1)).findIdBySsn("555-55-5555");
+    }
+}
@@ -0,0 +1,91 @@
+package nl.gerimedica.assignment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the get-or-create patient resolution.
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientResolverTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private PatientCache patientCache;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PatientResolver patientResolver;
+
+    @BeforeEach
+    void setUp() {
+        patientResolver = new PatientResolver(patientRepository, patientCache, events, transactionManager, 16);
+    }
+
+    @Test
+    void shouldUseCachedPatientWithoutQuerying() {
+        // Given
+        when(patientCache.findPatientId("123-45-6789")).thenReturn(Optional.of(1L));
+
+        // When
+        Long result = patientResolver.resolvePatientId("John Doe", "123-45-6789");
+
+        // Then
+        assertEquals(1L, result);
+        verifyNoInteractions(patientRepository, transactionManager);
+    }
+
+    @Test
+    void shouldCreateUnknownPatient() {
+        // Given
+        Patient created = new Patient("Jane Smith", "987-65-4321");
+        ReflectionTestUtils.setField(created, "id", 2L);
+        when(patientCache.findPatientId("987-65-4321")).thenReturn(Optional.empty());
+        when(patientRepository.findIdBySsn("987-65-4321")).thenReturn(Optional.empty());
+        when(patientRepository.saveAndFlush(any(Patient.class))).thenReturn(created);
+
+        // When
+        Long result = patientResolver.resolvePatientId("Jane Smith", "987-65-4321");
+
+        // Then
+        assertEquals(2L, result);
+        verify(events).publishEvent(any(PatientCreatedEvent.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void shouldUseExistingPatientWhenInsertLosesRace() {
+        // Given
+        when(patientCache.findPatientId("987-65-4321")).thenReturn(Optional.empty());
+        when(patientRepository.findIdBySsn("987-65-4321")).thenReturn(Optional.empty()).thenReturn(Optional.of(3L));
+        when(patientRepository.saveAndFlush(any(Patient.class)))
+            .thenThrow(new DataIntegrityViolationException("unique ssn"));
+
+        // When
+        Long result = patientResolver.resolvePatientId("Jane Smith", "987-65-4321");
+
+        // Then
+        assertEquals(3L, result);
+        verify(patientCache).evict("987-65-4321");
+        verify(events, never()).publishEvent(any());
+    }
+}
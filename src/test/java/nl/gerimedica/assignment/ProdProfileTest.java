@@ -0,0 +1,99 @@
+package nl.gerimedica.assignment;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Boots the tuned prod profile, with its in-memory stand-in swapped for a private database,
+ * and checks that its settings are applied and that the API works with connections in
+ * manual-commit mode.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:prod-profile-test;QUERY_CACHE_SIZE=256;DB_CLOSE_DELAY=-1",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "prod"})
+class ProdProfileTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldApplyPoolAndHibernateSettings() throws Exception {
+        // When
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        Map<String, Object> jpa = entityManagerFactory.getProperties();
+
+        // Then
+        assertEquals("hospital-pool", hikari.getPoolName());
+        assertEquals(16, hikari.getMaximumPoolSize());
+        assertEquals(16, hikari.getMinimumIdle());
+        assertFalse(hikari.isAutoCommit());
+        assertEquals("true", String.valueOf(jpa.get("hibernate.query.in_clause_parameter_padding")));
+        assertEquals("4096", String.valueOf(jpa.get("hibernate.query.plan_cache_max_size")));
+        assertEquals("100", String.valueOf(jpa.get("hibernate.jdbc.fetch_size")));
+        assertTrue(admissionControl.isEnabled());
+    }
+
+    @Test
+    void shouldCommitWritesWithAutoCommitDisabled() {
+        // Given
+        hospitalService.bulkCreateAppointments("Prod Patient", "PROD-1",
+            List.of("Checkup", "X-Ray"), List.of(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 2)));
+        hospitalService.bulkCreateAppointments("Prod Patient", "PROD-2",
+            List.of("Checkup"), List.of(LocalDate.of(2025, 6, 3)));
+
+        // When
+        hospitalService.deleteAppointmentsBySSN("PROD-2");
+        Map<String, AppointmentDto> latest = hospitalService.findLatestAppointmentsBySSNs(List.of("PROD-1", "PROD-2"));
+
+        // Then
+        assertEquals(2, appointmentRepository.findByPatientSsn("PROD-1").size());
+        assertTrue(appointmentRepository.findByPatientSsn("PROD-2").isEmpty());
+        assertEquals("X-Ray", latest.get("PROD-1").getReason());
+        assertFalse(latest.containsKey("PROD-2"));
+    }
+
+    @Test
+    void shouldExposePoolSaturation() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/actuator/pool"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pool").value("hospital-pool"))
+                .andExpect(jsonPath("$.max").value(16))
+                .andExpect(jsonPath("$.pending").value(0))
+                .andExpect(jsonPath("$.saturation").isNumber())
+                .andExpect(jsonPath("$.timeouts").value(0));
+    }
+}
@@ -0,0 +1,163 @@
+package nl.gerimedica.assignment;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN on the SQL Hibernate generates for each indexed repository method, including the
+ * GROUP BY report queries, and fails if a query no longer uses its index (H2 reports a full scan as
+ * {@code tableScan}).
+ * <p>
+ * Not covered, by design: the case-insensitive contains searches ({@code findByReasonContainingIgnoreCase},
+ * {@code findPageByReasonLike}, {@code streamByReasonLike}), which a B-tree cannot serve and which
+ * {@link ReasonSearchIndex} answers instead; {@code streamAllForIndex}, which reads every row; and
+ * the patient name searches, which are not on a request path.
+ * </p>
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:query-plan-test;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "nl.gerimedica.assignment.QueryPlanTest$CapturingInspector"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    /** Keeps the last SQL statement Hibernate prepared on this thread. */
+    public static class CapturingInspector implements StatementInspector {
+        private static final ThreadLocal<String> LAST = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            LAST.set(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    void createData() {
+        for (int patient = 0; patient < 20; patient++) {
+            List<String> reasons = new ArrayList<>();
+            List<LocalDate> dates = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                reasons.add(i % 2 == 0 ? "Checkup" : "X-Ray " + i);
+                dates.add(LocalDate.of(2025, 1, 1).plusDays(i));
+            }
+            hospitalService.bulkCreateAppointments("Plan Patient " + patient, "PLAN-" + patient, reasons, dates);
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void shouldUseAnIndexForEveryRepositoryQuery() {
+        LocalDate day = LocalDate.of(2025, 1, 5);
+        // Exempt, see the class comment: findByReasonContainingIgnoreCase, findPageByReasonLike and
+        // streamByReasonLike (leading-wildcard LIKE, served by ReasonSearchIndex), streamAllForIndex
+        // (reads every row on purpose) and the patient name searches (not on a request path)
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findByReason", () -> appointmentRepository.findByReason("Checkup"));
+        queries.put("findByPatientId", () -> appointmentRepository.findByPatientId(1L));
+        queries.put("findByPatientSsn", () -> appointmentRepository.findByPatientSsn("PLAN-1"));
+        queries.put("findByDate", () -> appointmentRepository.findByDate(day));
+        queries.put("findByDateRange", () -> appointmentRepository.findByDateRange(day, day.plusDays(7), 0L, Limit.of(10)));
+        queries.put("findLatestByPatientId", () -> appointmentRepository.findLatestByPatientId(1L));
+        queries.put("findLatestBySsnIn", () -> appointmentRepository.findLatestBySsnIn(List.of("PLAN-1", "PLAN-2")));
+        queries.put("findDtosByIdIn", () -> appointmentRepository.findDtosByIdIn(List.of(1L, 2L)));
+        queries.put("deleteByPatientId", () -> transactionTemplate.executeWithoutResult(status -> {
+            appointmentRepository.deleteByPatientId(-1L);
+            status.setRollbackOnly();
+        }));
+        queries.put("countByDateRange", () -> appointmentRepository.countByDate(day, day.plusDays(7)));
+        queries.put("countByDate", () -> appointmentRepository.countByDate());
+        queries.put("countByReason", () -> appointmentRepository.countByReason(Limit.of(10)));
+        queries.put("countByPatient", () -> appointmentRepository.countByPatient(Limit.of(10)));
+        queries.put("countPatientsByAppointments", () -> appointmentRepository.countPatientsByAppointments());
+        queries.put("countGroupsByPatientIdIn", () -> appointmentRepository.countGroupsByPatientIdIn(List.of(1L, 2L)));
+        queries.put("findBySsn", () -> patientRepository.findBySsn("PLAN-1"));
+        queries.put("findIdBySsn", () -> patientRepository.findIdBySsn("PLAN-1"));
+        queries.put("findBySsnIn", () -> patientRepository.findBySsnIn(List.of("PLAN-1", "PLAN-2")));
+
+        List<String> fullScans = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            String plan = explain(sqlOf(name, query));
+            if (plan.contains("tableScan")) {
+                fullScans.add(name + ":\n" + plan);
+            }
+        });
+
+        assertTrue(fullScans.isEmpty(), "Full table scans:\n" + String.join("\n\n", fullScans));
+    }
+
+    @Test
+    void shouldPickTheIntendedIndex() {
+        LocalDate day = LocalDate.of(2025, 1, 5);
+        assertTrue(explain(sqlOf("findByReason", () -> appointmentRepository.findByReason("Checkup")))
+            .contains("IDX_APPOINTMENT_REASON"));
+        assertTrue(explain(sqlOf("findLatestByPatientId", () -> appointmentRepository.findLatestByPatientId(1L)))
+            .contains("IDX_APPOINTMENT_PATIENT_DATE"));
+        assertTrue(explain(sqlOf("findByDate", () -> appointmentRepository.findByDate(day)))
+            .contains("IDX_APPOINTMENT_DATE"));
+        assertTrue(explain(sqlOf("countByDateRange", () -> appointmentRepository.countByDate(day, day.plusDays(7))))
+            .contains("IDX_APPOINTMENT_DATE"));
+        assertTrue(explain(sqlOf("findIdBySsn", () -> patientRepository.findIdBySsn("PLAN-1")))
+            .contains("UK_PATIENT_SSN"));
+    }
+
+    @Test
+    void shouldReadTheLatestAppointmentReactivelyFromTheIndex() {
+        String plan = explain(ReactiveAppointmentStore.LATEST_BY_SSN.replace(":ssn", "'PLAN-1'"));
+
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.contains("IDX_APPOINTMENT_PATIENT_DATE"), plan);
+        assertTrue(plan.contains("UK_PATIENT_SSN"), plan);
+    }
+
+    /**
+     * Run a query and return the SQL it prepared; fails if it ran none (e.g. answered from a cache),
+     * so a plan is never checked against an earlier query's statement.
+     */
+    private static String sqlOf(String name, Runnable query) {
+        CapturingInspector.LAST.remove();
+        query.run();
+        String sql = CapturingInspector.LAST.get();
+        assertNotNull(sql, name + " did not run any SQL");
+        return sql;
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class))
+            .toUpperCase(Locale.ROOT).replace("TABLESCAN", "tableScan");
+    }
+}
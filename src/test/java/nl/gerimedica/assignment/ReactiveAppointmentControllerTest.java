@@ -0,0 +1,190 @@
+package nl.gerimedica.assignment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs the reactive endpoints against a private database and checks that their writes are
+ * visible to the JPA side (caches, search index and rollup included).
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:reactive-test;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class ReactiveAppointmentControllerTest {
+
+    private static final String BASE = "/api/v1/reactive/appointments";
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Autowired
+    private AppointmentReportService reportService;
+
+    @Autowired
+    private ReactiveAppointmentService reactiveService;
+
+    @Autowired
+    private UsageMetrics usageMetrics;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    void shouldCountReactiveUsageWhenThePipelineCompletes() {
+        // Given
+        String operation = "Reactive find latest appointment";
+        long before = usageMetrics.count(operation);
+
+        // When
+        Mono<AppointmentDto> latest = reactiveService.findLatestAppointmentBySSN("RX-UNKNOWN");
+        long assembled = usageMetrics.count(operation);
+        latest.block(Duration.ofSeconds(10));
+
+        // Then
+        assertEquals(before, assembled, "Nothing has run before subscription");
+        assertEquals(before + 1, usageMetrics.count(operation));
+    }
+
+    @Test
+    void shouldCreateAndReadAppointmentsReactively() throws Exception {
+        // Given: the servlet side has already looked the SSN up, and created a row with its own ids
+        assertTrue(hospitalService.findLatestAppointmentBySSN("RX-0001").isEmpty());
+        BulkAppointmentRequest request = new BulkAppointmentRequest(
+            List.of("Reactive checkup", "Reactive scan", "Reactive follow-up"),
+            List.of(LocalDate.of(2033, 1, 1), LocalDate.of(2033, 1, 3), LocalDate.of(2033, 1, 2)));
+        Long servletId = hospitalService.bulkCreateAppointments("Other Patient", "RX-0002",
+            List.of("Reactive checkup"), List.of(LocalDate.of(2033, 1, 1))).get(0).getId();
+
+        // When
+        MvcResult created = dispatch(post(BASE + "/bulk")
+                .param("patientName", "Reactive Patient")
+                .param("ssn", "RX-0001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andReturn();
+
+        // Then
+        AppointmentDto[] dtos = objectMapper.readValue(created.getResponse().getContentAsString(), AppointmentDto[].class);
+        Set<Long> ids = new HashSet<>();
+        for (AppointmentDto dto : dtos) {
+            ids.add(dto.getId());
+        }
+        assertEquals(3, ids.size());
+        assertFalse(ids.contains(servletId));
+
+        String lines = dispatch(get(BASE + "/search").param("keyword", "reactive"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+            .andReturn().getResponse().getContentAsString();
+        assertEquals(4, lines.lines().count());
+
+        dispatch(get(BASE + "/latest").param("ssn", "RX-0001"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.reason").value("Reactive scan"));
+        assertEquals("Reactive scan", hospitalService.findLatestAppointmentBySSN("RX-0001").orElseThrow().getReason());
+        assertEquals(4, hospitalService.getAppointmentsByReason("reactive", null, 10).size());
+    }
+
+    @Test
+    void shouldDeleteAppointmentsReactively() throws Exception {
+        // Given
+        hospitalService.bulkCreateAppointments("Delete Patient", "RX-0003",
+            List.of("Reactive removal", "Reactive removal"), List.of(LocalDate.of(2034, 2, 1), LocalDate.of(2034, 2, 2)));
+        assertEquals(2, reportService.countsByDate(LocalDate.of(2034, 1, 1), LocalDate.of(2034, 12, 31),
+            AppointmentReportService.DateBucket.MONTH).get(0).getCount());
+
+        // When & Then
+        dispatch(delete(BASE).param("ssn", "RX-0003"))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string(AppointmentController.DELETED_COUNT_HEADER, "2"));
+        dispatch(delete(BASE).param("ssn", "RX-UNKNOWN"))
+            .andExpect(status().isNotFound());
+        dispatch(get(BASE).param("from", "2034-01-01").param("to", "2034-12-31"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+        assertTrue(hospitalService.findLatestAppointmentBySSN("RX-0003").isEmpty());
+        assertTrue(reportService.countsByDate(LocalDate.of(2034, 1, 1), LocalDate.of(2034, 12, 31),
+            AppointmentReportService.DateBucket.MONTH).isEmpty());
+    }
+
+    @Test
+    void shouldPageDateRangeWithKeysetCursor() throws Exception {
+        // Given: three appointments in the window, two on the same day
+        hospitalService.bulkCreateAppointments("Paging Patient", "RX-0005",
+            List.of("Reactive page", "Reactive page", "Reactive page"),
+            List.of(LocalDate.of(2035, 3, 1), LocalDate.of(2035, 3, 1), LocalDate.of(2035, 3, 2)));
+
+        // When
+        MvcResult first = dispatch(get(BASE).param("from", "2035-01-01").param("to", "2035-12-31").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andReturn();
+        String cursor = first.getResponse().getHeader(AppointmentController.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+        MockHttpServletRequestBuilder next = get(BASE + "?" + cursor)
+            .param("from", "2035-01-01").param("to", "2035-12-31").param("limit", "2");
+
+        // Then: the last row follows, and the short page has no cursor
+        dispatch(next)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].date").value("2035-03-02"))
+            .andExpect(header().doesNotExist(AppointmentController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void shouldValidateBulkRequestLikeTheServletEndpoint() throws Exception {
+        // Given
+        BulkAppointmentRequest request = new BulkAppointmentRequest(List.of(), List.of(LocalDate.of(2033, 1, 1)));
+
+        // When & Then
+        mockMvc.perform(post(BASE + "/bulk")
+                .param("patientName", "Invalid Patient")
+                .param("ssn", "RX-0004")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isBadRequest());
+    }
+
+    /** Perform a request whose handler returns a publisher, and dispatch its result. */
+    private ResultActions dispatch(RequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
@@ -0,0 +1,151 @@
+package nl.gerimedica.assignment;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the in-memory reason index and the DTO keyset query return exactly what the
+ * database's case-insensitive contains query returns. Uses a private database so other test
+ * contexts sharing "testdb" cannot invalidate the index.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:reason-index-test;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReasonSearchIndexTest {
+
+    private static final String[] WORDS = {
+        "Checkup", "check-in", "Follow-up", "X-Ray", "MRI scan", "Blood test", "Vaccination",
+        "Physiotherapy", "Dental CHECK", "Eye exam", "Consultation", "Ré-évaluation", "100% review", "a_b",
+        "Straße", "Kırmızı", "ﬁle"
+    };
+
+    private static final String[] KEYWORDS = {
+        "check", "CHECK", "c", "x", "-", "up", "scan", "tion", "ré", "%", "_", "eval", "ray", "zzz",
+        "physiotherapy", "checkup follow", "a",
+        "ss", "STRASSE", "i", "fi", "ß"
+    };
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ReasonSearchIndex reasonIndex;
+
+    @BeforeAll
+    void createCorpus() throws InterruptedException {
+        Random random = new Random(42);
+        for (int patient = 0; patient < 20; patient++) {
+            List<String> reasons = new ArrayList<>();
+            List<LocalDate> dates = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                String reason = WORDS[random.nextInt(WORDS.length)];
+                reasons.add(random.nextBoolean() ? reason : reason + " " + WORDS[random.nextInt(WORDS.length)]);
+                dates.add(LocalDate.of(2025, 1, i + 1));
+            }
+            hospitalService.bulkCreateAppointments("Index Patient " + patient, "IDX-" + patient, reasons, dates);
+        }
+        // The index loads asynchronously after startup
+        for (int i = 0; i < 100 && !reasonIndex.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(reasonIndex.isReady(), "Index should finish loading");
+    }
+
+    @Test
+    void shouldMatchDatabaseContainsSemantics() {
+        for (String keyword : KEYWORDS) {
+            List<Long> expected = appointmentRepository.findByReasonContainingIgnoreCase(keyword).stream()
+                .map(Appointment::getId)
+                .sorted()
+                .toList();
+
+            assertEquals(expected, reasonIndex.search(keyword, 0L, Integer.MAX_VALUE),
+                "Index result differs for keyword '" + keyword + "'");
+            assertEquals(expected, appointmentRepository.findPageByReason(keyword, 0L, Limit.unlimited()).stream()
+                    .map(AppointmentDto::getId)
+                    .toList(),
+                "DTO page query differs for keyword '" + keyword + "'");
+        }
+    }
+
+    @Test
+    void shouldPageInIdOrder() {
+        List<Long> all = reasonIndex.search("e", 0L, Integer.MAX_VALUE);
+        List<Long> paged = new ArrayList<>();
+        long afterId = 0;
+        List<Long> page;
+        do {
+            page = reasonIndex.search("e", afterId, 7);
+            paged.addAll(page);
+            afterId = page.isEmpty() ? afterId : page.get(page.size() - 1);
+        } while (page.size() == 7);
+
+        assertEquals(all, paged);
+    }
+
+    @Test
+    void shouldDropDeletedPatients() {
+        hospitalService.bulkCreateAppointments("Index Delete", "IDX-DEL", List.of("Unique tracer"), List.of(LocalDate.of(2025, 2, 1)));
+        assertEquals(1, reasonIndex.search("tracer", 0L, 10).size());
+
+        hospitalService.deleteAppointmentsBySSN("IDX-DEL");
+
+        assertTrue(reasonIndex.search("tracer", 0L, 10).isEmpty());
+    }
+
+    @Test
+    void shouldFillPagesWhenIndexedRowsWereAlreadyDeleted() {
+        // Given: six matches, and the next page's rows deleted behind the index's back,
+        // as in the window between a delete commit and its after-commit event
+        List<AppointmentDto> created = hospitalService.bulkCreateAppointments("Index Stale", "IDX-STALE",
+            List.of("Stale marker", "Stale marker", "Stale marker", "Stale marker", "Stale marker", "Stale marker"),
+            List.of(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 3),
+                LocalDate.of(2025, 3, 4), LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 6)));
+        List<Long> ids = created.stream().map(AppointmentDto::getId).sorted().toList();
+        List<AppointmentDto> first = hospitalService.getAppointmentsByReason("stale marker", null, 2);
+        appointmentRepository.deleteAllById(ids.subList(2, 4));
+
+        // When
+        List<AppointmentDto> second = hospitalService.getAppointmentsByReason("stale marker", ids.get(1), 2);
+
+        // Then: the page is still full, so the cursor keeps going
+        assertEquals(ids.subList(0, 2), first.stream().map(AppointmentDto::getId).toList());
+        assertEquals(ids.subList(4, 6), second.stream().map(AppointmentDto::getId).toList());
+        assertTrue(hospitalService.getAppointmentsByReason("stale marker", ids.get(5), 2).isEmpty());
+    }
+
+    @Test
+    void shouldDropIndexBeyondCapacity() {
+        // Given
+        ReasonSearchIndex capped = new ReasonSearchIndex(null, null, true, 3);
+
+        // When
+        capped.addAll(List.of(
+            new AppointmentDto(1L, "Checkup", LocalDate.of(2025, 1, 1), 1L),
+            new AppointmentDto(2L, "Checkup", LocalDate.of(2025, 1, 2), 1L),
+            new AppointmentDto(3L, "X-Ray", LocalDate.of(2025, 1, 3), 2L)));
+        Map<String, Integer> withinCap = capped.countsByReason();
+        capped.addAll(List.of(new AppointmentDto(4L, "X-Ray", LocalDate.of(2025, 1, 4), 2L)));
+
+        // Then
+        assertEquals(Map.of("Checkup", 2, "X-Ray", 1), withinCap);
+        assertTrue(capped.countsByReason().isEmpty());
+        assertFalse(capped.isReady());
+    }
+}
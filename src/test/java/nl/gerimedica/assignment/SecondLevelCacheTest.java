@@ -0,0 +1,124 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that patient lookups are served from the second-level and query caches and that
+ * bulk creates and deletes invalidate them. Runs with the production region names
+ * (no test prefix) so a region missing from application.conf fails startup.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:second-level-cache-test;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.cache.region_prefix=",
+    "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=fail"
+})
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private HospitalService hospitalService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // A local template: the context's shared TransactionTemplate must not be switched to read-only
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromQueryCache() {
+        // Given
+        createAppointments("L2C-0001", 2);
+        appointmentCount("L2C-0001");
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long hitsBefore = statistics.getQueryCacheHitCount();
+
+        // When
+        int count = appointmentCount("L2C-0001");
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(statementsBefore, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getQueryCacheHitCount() > hitsBefore);
+    }
+
+    @Test
+    void shouldSeeAppointmentsAddedByBulkCreate() {
+        // Given
+        createAppointments("L2C-0002", 1);
+        assertEquals(1, appointmentCount("L2C-0002"));
+
+        // When
+        createAppointments("L2C-0002", 2);
+
+        // Then
+        assertEquals(3, appointmentCount("L2C-0002"));
+    }
+
+    @Test
+    void shouldSeeAppointmentsRemovedByDelete() {
+        // Given
+        createAppointments("L2C-0003", 2);
+        assertEquals(2, appointmentCount("L2C-0003"));
+
+        // When
+        hospitalService.deleteAppointmentsBySSN("L2C-0003");
+
+        // Then
+        assertEquals(0, appointmentCount("L2C-0003"));
+    }
+
+    @Test
+    void shouldPublishCacheStatisticsAsMeters() {
+        // Given
+        createAppointments("L2C-0004", 1);
+        appointmentCount("L2C-0004");
+
+        // Then
+        assertFalse(meterRegistry.find("hibernate.second.level.cache.requests").meters().isEmpty());
+        assertFalse(meterRegistry.find("hibernate.cache.query.requests").meters().isEmpty());
+    }
+
+    private void createAppointments(String ssn, int count) {
+        hospitalService.bulkCreateAppointments("Cache Patient", ssn,
+            Collections.nCopies(count, "Checkup"),
+            Collections.nCopies(count, LocalDate.of(2025, 9, 1)));
+    }
+
+    private int appointmentCount(String ssn) {
+        return readOnlyTx.execute(status -> patientRepository.findBySsnWithAppointments(ssn)
+            .map(patient -> patient.getAppointments().size())
+            .orElseThrow());
+    }
+}
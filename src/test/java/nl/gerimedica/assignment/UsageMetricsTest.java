@@ -0,0 +1,89 @@
+package nl.gerimedica.assignment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the striped usage counters and their background drain.
+ */
+class UsageMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UsageMetrics usageMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Long interval so only explicit drain() calls report
+        usageMetrics = new UsageMetrics(meterRegistry, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        usageMetrics.stop();
+    }
+
+    @Test
+    void shouldCountPerOperationAndPublishCounter() {
+        // When
+        usageMetrics.record("Search");
+        usageMetrics.record("Search");
+        usageMetrics.record("Delete");
+
+        // Then
+        assertEquals(2, usageMetrics.count("Search"));
+        assertEquals(1, usageMetrics.count("Delete"));
+        assertEquals(2.0, meterRegistry.get("hospital.usage").tag("operation", "Search").functionCounter().count());
+    }
+
+    @Test
+    void shouldDrainRecordedEventsOnce() {
+        // Given
+        usageMetrics.record("Search");
+        usageMetrics.record("Delete");
+        usageMetrics.record("Search");
+
+        // When
+        Map<String, Long> first = usageMetrics.drain();
+        Map<String, Long> second = usageMetrics.drain();
+
+        // Then
+        assertEquals(Map.of("Search", 2L, "Delete", 1L), first);
+        assertTrue(second.isEmpty());
+    }
+
+    @Test
+    void shouldReportEveryConcurrentCallAcrossDrains() throws InterruptedException {
+        // Given
+        int threads = 4;
+        int callsPerThread = 10_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < callsPerThread; i++) {
+                    usageMetrics.record("Search");
+                }
+            });
+            workers[t].start();
+        }
+
+        // When: drain while the workers are still recording
+        long reported = 0;
+        for (Thread worker : workers) {
+            reported += usageMetrics.drain().getOrDefault("Search", 0L);
+            worker.join();
+        }
+        reported += usageMetrics.drain().getOrDefault("Search", 0L);
+
+        // Then
+        assertEquals((long) threads * callsPerThread, reported);
+        assertEquals((long) threads * callsPerThread, usageMetrics.count("Search"));
+    }
+}
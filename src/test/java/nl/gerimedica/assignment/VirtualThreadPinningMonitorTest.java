@@ -0,0 +1,48 @@
+package nl.gerimedica.assignment;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the application starts in virtual-thread mode and that pinned
+ * virtual threads are picked up by the JFR-based monitor.
+ */
+@SpringBootTest(properties = {
+    "spring.threads.virtual.enabled=true",
+    "spring.datasource.url=jdbc:h2:mem:virtual-threads-test;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+
+    @Autowired
+    private VirtualThreadPinningMonitor monitor;
+
+    @Test
+    void shouldCountPinnedVirtualThread() throws InterruptedException {
+        // Given
+        long before = monitor.pinnedCount();
+
+        // When: blocking while holding a monitor pins the virtual thread to its carrier
+        Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        // Then: JFR streams events in batches, so allow a few seconds
+        for (int i = 0; i < 100 && monitor.pinnedCount() == before; i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(monitor.pinnedCount() > before, "Pinned virtual thread was not reported");
+    }
+}